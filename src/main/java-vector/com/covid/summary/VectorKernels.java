@@ -0,0 +1,124 @@
+package com.covid.summary;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The `VectorKernels` class runs the aggregation kernels with the incubating Vector API, using the
+ * widest vectors the CPU supports.  Sums of `int` values are widened to `long` lanes, so they
+ * cannot overflow.
+ *
+ * This source root is compiled on its own, against `jdk.incubator.vector`:
+ * <pre>
+ *     javac -source 16 -target 16 --add-modules jdk.incubator.vector -cp &lt;classes&gt; -d &lt;classes&gt; VectorKernels.java
+ * </pre>
+ * Nothing refers to the class directly: `AggregationKernels` loads it by name when the module is
+ * present at run time (`--add-modules jdk.incubator.vector`), and uses `ScalarKernels` otherwise.
+ */
+final class VectorKernels implements ColumnKernels {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    VectorKernels() {
+        if (INTS.vectorBitSize() != LONGS.vectorBitSize()) {
+            throw new IllegalStateException("Unexpected vector shapes: " + INTS + ", " + LONGS); // Each int vector widens to two long vectors
+        }
+    }
+
+    @Override
+    public long sum(int[] values, int from, int to) {
+        LongVector low = LongVector.zero(LONGS);
+        LongVector high = LongVector.zero(LONGS);
+        int i = from;
+        for (int upper = from + INTS.loopBound(to - from); i < upper; i += INTS.length()) {
+            IntVector vector = IntVector.fromArray(INTS, values, i);
+            low = low.add((LongVector) vector.convertShape(VectorOperators.I2L, LONGS, 0));
+            high = high.add((LongVector) vector.convertShape(VectorOperators.I2L, LONGS, 1));
+        }
+        long sum = low.add(high).reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public long sum(long[] values, int from, int to) {
+        LongVector sums = LongVector.zero(LONGS);
+        int i = from;
+        for (int upper = from + LONGS.loopBound(to - from); i < upper; i += LONGS.length()) {
+            sums = sums.add(LongVector.fromArray(LONGS, values, i));
+        }
+        long sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int max(int[] values, int from, int to) {
+        IntVector maxima = IntVector.broadcast(INTS, Integer.MIN_VALUE);
+        int i = from;
+        for (int upper = from + INTS.loopBound(to - from); i < upper; i += INTS.length()) {
+            maxima = maxima.max(IntVector.fromArray(INTS, values, i));
+        }
+        int max = maxima.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public long max(long[] values, int from, int to) {
+        LongVector maxima = LongVector.broadcast(LONGS, Long.MIN_VALUE);
+        int i = from;
+        for (int upper = from + LONGS.loopBound(to - from); i < upper; i += LONGS.length()) {
+            maxima = maxima.max(LongVector.fromArray(LONGS, values, i));
+        }
+        long max = maxima.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public void adjacentDifference(int[] values, int from, int to, int previous, int[] out) {
+        if (from == to) {
+            return;
+        }
+        out[0] = values[from] - previous;
+        int i = from + 1;
+        for (int upper = i + INTS.loopBound(to - i); i < upper; i += INTS.length()) {
+            IntVector.fromArray(INTS, values, i).sub(IntVector.fromArray(INTS, values, i - 1)).intoArray(out, i - from);
+        }
+        for (; i < to; i++) {
+            out[i - from] = values[i] - values[i - 1];
+        }
+    }
+
+    @Override
+    public void adjacentDifference(long[] values, int from, int to, long previous, long[] out) {
+        if (from == to) {
+            return;
+        }
+        out[0] = values[from] - previous;
+        int i = from + 1;
+        for (int upper = i + LONGS.loopBound(to - i); i < upper; i += LONGS.length()) {
+            LongVector.fromArray(LONGS, values, i).sub(LongVector.fromArray(LONGS, values, i - 1)).intoArray(out, i - from);
+        }
+        for (; i < to; i++) {
+            out[i - from] = values[i] - values[i - 1];
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "vector (" + INTS.vectorBitSize() + "-bit)";
+    }
+}
\ No newline at end of file
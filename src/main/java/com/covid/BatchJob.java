@@ -0,0 +1,117 @@
+package com.covid;
+
+import com.covid.data.Data;
+import com.covid.data.Dataset;
+import com.covid.summary.GroupingStrategy;
+import com.covid.summary.ResultStore;
+import com.covid.summary.RollupCube;
+import com.covid.summary.Summary;
+import com.covid.summary.SummaryExecutor;
+import com.covid.summary.SummarySpec;
+import com.covid.util.DateRange;
+import com.covid.util.EpochDays;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The `BatchJob` class runs the whole-dataset job: a summary of every metric for every location,
+ * over all the dates loaded for the location, computed at once by a `SummaryExecutor` on all cores
+ * and written to a CSV file with one line per result.  It is started from `Main` with
+ * `-Dcovid.batch=<output file>`, in place of the user interface.
+ *
+ * With a `ResultStore`, as the nightly job runs it, summaries of locations whose data has not
+ * changed since the previous run are read back from the store rather than computed.
+ */
+public class BatchJob {
+
+    private final Dataset dataset;            // Shared read-only data to summarize
+    private final RollupCube rollup;          // Precomputed rollup cube, or null
+    private final GroupingStrategy grouping;  // Grouping of every summary
+    private final ResultStore store;          // Results kept between runs, or null
+
+    /**
+     * Constructs a `BatchJob`.
+     *
+     * @param dataset  The dataset to summarize.
+     * @param rollup   The rollup cube built from the data, or null to always summarize the raw data.
+     * @param grouping The strategy to group each location's data with.
+     * @param store    The store of results computed in earlier runs, or null to compute every summary.
+     * @throws IllegalArgumentException if the dataset or grouping is null.
+     */
+    public BatchJob(Dataset dataset, RollupCube rollup, GroupingStrategy grouping, ResultStore store) {
+        if (dataset == null || grouping == null) {
+            throw new IllegalArgumentException("Dataset and grouping must not be null");
+        }
+        this.dataset = dataset;
+        this.rollup = rollup;
+        this.grouping = grouping;
+        this.store = store;
+    }
+
+    /**
+     * @return The specs of the job: every metric of every location, from its first to its last date, as new totals.
+     */
+    public List<SummarySpec> specs() {
+        List<SummarySpec> specs = new ArrayList<>();
+        for (String location : dataset.getLocations()) {
+            List<List<Data>> series = dataset.getSeries(location);
+            if (series.size() != 1) {
+                continue; // Name shared with a continent, whose rows it would select too
+            }
+            List<Data> rows = series.get(0);
+            DateRange dates = DateRange.ofEpochDays(rows.get(0).getEpochDay(), rows.get(rows.size() - 1).getEpochDay());
+            for (Summary.Metric metric : Summary.Metric.values()) {
+                specs.add(new SummarySpec(location, dates, grouping, metric, Summary.ResultType.NEW_TOTAL));
+            }
+        }
+        return specs;
+    }
+
+    /**
+     * Runs the job and writes the results as CSV: location, metric, start date, end date and value
+     * of each group, in location order.
+     *
+     * @param output The file to write, replaced if it exists.
+     * @return The number of summaries computed.
+     * @throws IOException If the file cannot be written.
+     * @throws java.io.UncheckedIOException if the result store cannot be read or written.
+     */
+    public int run(Path output) throws IOException {
+        List<SummarySpec> specs = specs();
+        List<List<Summary.SummaryResult>> results =
+            new SummaryExecutor(dataset, rollup, ForkJoinPool.commonPool(), store).execute(specs);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write("location,metric,start_date,end_date,value");
+            writer.newLine();
+            for (int i = 0; i < specs.size(); i++) {
+                SummarySpec spec = specs.get(i);
+                for (Summary.SummaryResult result : results.get(i)) {
+                    DateRange range = result.getDateRange();
+                    writer.write(quote(spec.getArea()) + "," + spec.getMetric() + ","
+                        + EpochDays.format(range.getStartEpochDay()) + "," + EpochDays.format(range.getEndEpochDay())
+                        + "," + result.getValue());
+                    writer.newLine();
+                }
+            }
+        }
+        return specs.size();
+    }
+
+    /**
+     * Quotes a CSV field if it contains a comma or a quote.
+     */
+    private static String quote(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0) {
+            return field;
+        }
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+}
\ No newline at end of file
@@ -1,12 +1,24 @@
 package com.covid;
 
+import com.covid.data.AnomalyReport;
 import com.covid.data.Data;
 import com.covid.data.DataReader;
+import com.covid.data.Dataset;
+import com.covid.data.LoadFilter;
+import com.covid.data.OffHeapDataStore;
+import com.covid.data.ValidationReport;
+import com.covid.summary.ResultStore;
+import com.covid.summary.RollupCube;
+import com.covid.summary.Summary;
 import com.covid.ui.UserInterface;
+import com.covid.util.DateRange;
+import com.covid.util.EpochDays;
 
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Main class for the COVID data analysis application.
@@ -22,8 +34,16 @@ public class Main {
      */
     public static void main(String[] args) {
         try {
-            // Read data from the CSV file using the DataReader class
-            List<Data> allData = DataReader.readCSV("data/covid-data.csv");
+            // Abort the load if more rows are rejected than allowed by -Dcovid.errorBudget (unlimited by default)
+            ValidationReport report = new ValidationReport(ValidationReport.DEFAULT_SAMPLE_SIZE,
+                Long.getLong("covid.errorBudget", ValidationReport.UNLIMITED_BUDGET));
+
+            // Read data from the CSV file using the DataReader class, only the slice selected by the
+            // -Dcovid.areas, -Dcovid.loadFrom and -Dcovid.loadTo properties if given, within
+            // -Dcovid.memoryBudgetMb megabytes if given
+            long memoryBudgetMb = Long.getLong("covid.memoryBudgetMb", 0);
+            List<Data> allData = DataReader.readCSV("data/covid-data.csv", report, new AnomalyReport(), loadFilter(),
+                memoryBudgetMb > 0 ? memoryBudgetMb << 20 : DataReader.UNLIMITED_MEMORY);
 
             // Check if any data was read. Exit if the list is empty.
             if (allData.isEmpty()) {
@@ -31,8 +51,38 @@ public class Main {
                 return; // Exit the application if no data is found
             }
 
+            // Optionally move the data off the heap: -Dcovid.offHeap=true for direct memory,
+            // or -Dcovid.offHeapFile=<path> for a memory-mapped file
+            String offHeapFile = System.getProperty("covid.offHeapFile");
+            if (offHeapFile != null) {
+                allData = OffHeapDataStore.mapped(allData, Path.of(offHeapFile));
+            } else if (Boolean.getBoolean("covid.offHeap")) {
+                allData = OffHeapDataStore.of(allData);
+            }
+
+            // Pre-aggregate the data by location/continent and calendar week and month for aligned
+            // queries, unless disabled with -Dcovid.rollup=false
+            RollupCube rollup = Boolean.parseBoolean(System.getProperty("covid.rollup", "true"))
+                ? RollupCube.build(allData) : null;
+
+            // With -Dcovid.batch=<output file>, run the whole-dataset batch job instead of the user
+            // interface, grouped by the calendar period of -Dcovid.batchPeriod (MONTH by default),
+            // reusing the results kept in the -Dcovid.resultStore=<directory> store if given
+            String batchOutput = System.getProperty("covid.batch");
+            if (batchOutput != null) {
+                Summary.Period period = Summary.Period.valueOf(
+                    System.getProperty("covid.batchPeriod", "MONTH").trim().toUpperCase(Locale.ROOT));
+                String storeDirectory = System.getProperty("covid.resultStore");
+                try (ResultStore store = storeDirectory == null ? null : new ResultStore(Path.of(storeDirectory))) {
+                    BatchJob job = new BatchJob(new Dataset(allData), rollup, new Summary.ByPeriod(period), store);
+                    int summaries = job.run(Path.of(batchOutput));
+                    System.out.println("Batch: " + summaries + " summaries written to " + batchOutput);
+                }
+                return;
+            }
+
             // Create an instance of the UserInterface, passing the data read from the CSV
-            UserInterface ui = new UserInterface(allData);
+            UserInterface ui = new UserInterface(new Dataset(allData), rollup);
 
             // Start the user interface interaction
             ui.run();
@@ -47,4 +97,32 @@ public class Main {
             e.printStackTrace(); // Print the stack trace for debugging purposes
         }
     }
+
+    /**
+     * Builds the load filter from the system properties: `covid.areas`, a semicolon-separated list
+     * of locations or continents (commas appear in names such as "Korea, Republic of"), and
+     * `covid.loadFrom` and `covid.loadTo`, dates in M/d/yyyy or yyyy-MM-dd format.  Either end of
+     * the date window may be left open.
+     *
+     * @return The filter selecting the rows to load.
+     * @throws IllegalArgumentException if a date cannot be parsed or the window is empty.
+     */
+    private static LoadFilter loadFilter() {
+        LoadFilter filter = LoadFilter.ALL;
+        String areas = System.getProperty("covid.areas");
+        if (areas != null && !areas.isBlank()) {
+            filter = filter.withAreas(areas.split(";"));
+        }
+        String from = System.getProperty("covid.loadFrom");
+        String to = System.getProperty("covid.loadTo");
+        if (from != null || to != null) {
+            int start = from == null ? EpochDays.of(1, 1, 1) : EpochDays.parse(from.trim());
+            int end = to == null ? EpochDays.of(9999, 12, 31) : EpochDays.parse(to.trim());
+            if (start == EpochDays.INVALID || end == EpochDays.INVALID) {
+                throw new IllegalArgumentException("Invalid load date: " + (start == EpochDays.INVALID ? from : to));
+            }
+            filter = filter.withDateRange(DateRange.ofEpochDays(start, end));
+        }
+        return filter;
+    }
 }
\ No newline at end of file
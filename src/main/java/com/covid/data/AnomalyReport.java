@@ -0,0 +1,130 @@
+package com.covid.data;
+
+import com.covid.util.EpochDays;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The `AnomalyReport` class collects data quality problems found in the loaded series: cumulative
+ * vaccination counts going backwards, outlying daily values, population changes within a series
+ * and duplicate dates.  Like `ValidationReport`, it keeps a counter per anomaly type and only the
+ * first few occurrences of each, so its size does not grow with the data.
+ */
+public class AnomalyReport {
+
+    /**
+     * Represents the kinds of anomalies detected.
+     */
+    public enum AnomalyType { VACCINATION_DECREASE, CASES_OUTLIER, DEATHS_OUTLIER, POPULATION_CHANGE, DUPLICATE_DATE }
+
+    private final int sampleSize;                // Maximum number of occurrences kept per anomaly type
+    private final long[] counts;                 // Number of anomalies per type
+    private final List<List<String>> samples;    // First occurrences per type, as "location date" text
+
+    /**
+     * Constructs an `AnomalyReport` keeping `ValidationReport.DEFAULT_SAMPLE_SIZE` occurrences per type.
+     */
+    public AnomalyReport() {
+        this(ValidationReport.DEFAULT_SAMPLE_SIZE);
+    }
+
+    /**
+     * Constructs an `AnomalyReport`.
+     *
+     * @param sampleSize The maximum number of occurrences kept per anomaly type.
+     * @throws IllegalArgumentException if the sample size is negative.
+     */
+    public AnomalyReport(int sampleSize) {
+        if (sampleSize < 0) {
+            throw new IllegalArgumentException("Sample size must not be negative");
+        }
+        this.sampleSize = sampleSize;
+        this.counts = new long[AnomalyType.values().length];
+        this.samples = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            samples.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Records an anomaly.  The description is only built while the sample for the type is not full.
+     *
+     * @param type     The kind of anomaly.
+     * @param location The location of the offending row.
+     * @param epochDay The date of the offending row, as days since 1970-01-01.
+     */
+    public void record(AnomalyType type, String location, int epochDay) {
+        counts[type.ordinal()]++;
+        List<String> sample = samples.get(type.ordinal());
+        if (sample.size() < sampleSize) {
+            sample.add(location + " " + EpochDays.format(epochDay));
+        }
+    }
+
+    /**
+     * Adds the anomalies of another report to this one.  Samples are appended in order until full,
+     * so merging the reports of several locations in a fixed order gives the same result every time.
+     *
+     * @param other The report to add.
+     * @return This report.
+     */
+    public AnomalyReport merge(AnomalyReport other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+            List<String> sample = samples.get(i);
+            for (String occurrence : other.samples.get(i)) {
+                if (sample.size() >= sampleSize) {
+                    break;
+                }
+                sample.add(occurrence);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return The number of anomalies across all types.
+     */
+    public long getTotal() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @param type The anomaly type.
+     * @return The number of anomalies of the given type.
+     */
+    public long getCount(AnomalyType type) { return counts[type.ordinal()]; }
+
+    /**
+     * @param type The anomaly type.
+     * @return The first occurrences of the given type, as "location date" text.
+     */
+    public List<String> getSamples(AnomalyType type) {
+        return Collections.unmodifiableList(samples.get(type.ordinal()));
+    }
+
+    /**
+     * Returns a summary of the anomalies, one line per anomaly type that occurred.
+     *
+     * @return The summary text.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Data anomalies: %d%n", getTotal()));
+        for (AnomalyType type : AnomalyType.values()) {
+            long count = counts[type.ordinal()];
+            if (count > 0) {
+                sb.append(String.format("  %-20s %d (%s%s)%n", type, count,
+                    String.join(", ", samples.get(type.ordinal())), count > sampleSize ? ", ..." : ""));
+            }
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,172 @@
+package com.covid.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The `AnomalyScanner` class checks each location's daily series for values that should not be
+ * trusted.  Every series is scanned in a single pass, and the series of different locations are
+ * scanned in parallel.  It flags:
+ * <ul>
+ *     <li>people vaccinated decreasing, although the column is cumulative (zero is treated as not reported);</li>
+ *     <li>new cases or new deaths more than a number of standard deviations above the mean of the
+ *         preceding days (a rolling z-score);</li>
+ *     <li>the population changing within a series.</li>
+ * </ul>
+ * Duplicate dates are detected while the series are built, see `DataReader`.
+ */
+public class AnomalyScanner {
+
+    public static final int DEFAULT_WINDOW_DAYS = 28;      // Preceding days used for the rolling mean and deviation
+    public static final double DEFAULT_Z_THRESHOLD = 6.0;  // Z-score above which a daily value is an outlier
+    public static final int DEFAULT_MIN_OUTLIER = 10;      // Values below this are never outliers, to ignore tiny counts
+
+    private final int windowDays;
+    private final double zThreshold;
+    private final int minOutlier;
+
+    /**
+     * Constructs an `AnomalyScanner` with the default window, threshold and minimum outlier value.
+     */
+    public AnomalyScanner() {
+        this(DEFAULT_WINDOW_DAYS, DEFAULT_Z_THRESHOLD, DEFAULT_MIN_OUTLIER);
+    }
+
+    /**
+     * Constructs an `AnomalyScanner`.
+     *
+     * @param windowDays The number of preceding days used for the rolling mean and standard deviation.
+     * @param zThreshold The z-score above which a daily value is flagged as an outlier.
+     * @param minOutlier The smallest daily value that can be flagged as an outlier.
+     * @throws IllegalArgumentException if the window is shorter than 2 days or the threshold is not positive.
+     */
+    public AnomalyScanner(int windowDays, double zThreshold, int minOutlier) {
+        if (windowDays < 2 || zThreshold <= 0) {
+            throw new IllegalArgumentException("Window must be at least 2 days and threshold must be positive");
+        }
+        this.windowDays = windowDays;
+        this.zThreshold = zThreshold;
+        this.minOutlier = minOutlier;
+    }
+
+    /**
+     * Scans the loaded data.  The rows of each location must be contiguous and in date order, as
+     * returned by `DataReader.readCSV`.
+     *
+     * @param data The rows to scan.
+     * @return A report of the anomalies found.
+     */
+    public AnomalyReport scan(List<Data> data) {
+        // Find the run of rows of each location
+        List<int[]> runs = new ArrayList<>();
+        int runStart = 0;
+        for (int i = 1; i <= data.size(); i++) {
+            if (i == data.size() || !data.get(i).getLocation().equals(data.get(runStart).getLocation())) {
+                runs.add(new int[] { runStart, i });
+                runStart = i;
+            }
+        }
+
+        // Scan the runs in parallel; an ordered reduction keeps the samples deterministic
+        return runs.parallelStream()
+            .map(run -> scanLocation(data, run[0], run[1]))
+            .reduce(AnomalyReport::merge)
+            .orElseGet(AnomalyReport::new);
+    }
+
+    /**
+     * Scans the rows of one location in a single pass.
+     */
+    private AnomalyReport scanLocation(List<Data> data, int from, int to) {
+        AnomalyReport report = new AnomalyReport();
+        RollingStats cases = new RollingStats(windowDays);
+        RollingStats deaths = new RollingStats(windowDays);
+        int lastVaccinated = 0;
+        long lastPopulation = -1;
+
+        for (int i = from; i < to; i++) {
+            Data row = data.get(i);
+
+            int vaccinated = row.getPeopleVaccinated();
+            if (vaccinated != 0) { // Zero means not reported, not a decrease
+                if (vaccinated < lastVaccinated) {
+                    report.record(AnomalyReport.AnomalyType.VACCINATION_DECREASE, row.getLocation(), row.getEpochDay());
+                }
+                lastVaccinated = vaccinated;
+            }
+
+            long population = row.getPopulation();
+            if (lastPopulation >= 0 && population != lastPopulation) {
+                report.record(AnomalyReport.AnomalyType.POPULATION_CHANGE, row.getLocation(), row.getEpochDay());
+            }
+            lastPopulation = population;
+
+            if (isOutlier(cases, row.getNewCases())) {
+                report.record(AnomalyReport.AnomalyType.CASES_OUTLIER, row.getLocation(), row.getEpochDay());
+            }
+            if (isOutlier(deaths, row.getNewDeaths())) {
+                report.record(AnomalyReport.AnomalyType.DEATHS_OUTLIER, row.getLocation(), row.getEpochDay());
+            }
+            cases.add(row.getNewCases());
+            deaths.add(row.getNewDeaths());
+        }
+        return report;
+    }
+
+    /**
+     * Checks a value against the statistics of the preceding window, before the value is added.
+     */
+    private boolean isOutlier(RollingStats stats, int value) {
+        if (value < minOutlier || !stats.isFull()) {
+            return false;
+        }
+        // Compare squares, (value - mean) / deviation > z, to keep the square root out of the loop
+        double excess = value - stats.mean();
+        double variance = stats.variance();
+        return variance > 0 && excess > 0 && excess * excess > zThreshold * zThreshold * variance;
+    }
+
+    /**
+     * The mean and variance of the last `size` values, updated in constant time.
+     */
+    private static final class RollingStats {
+        private final int[] window;
+        private int count;
+        private int next;
+        private double sum;
+        private double sumOfSquares;
+
+        private RollingStats(int size) {
+            this.window = new int[size];
+        }
+
+        private void add(int value) {
+            if (count == window.length) {
+                int removed = window[next];
+                sum -= removed;
+                sumOfSquares -= (double) removed * removed;
+            } else {
+                count++;
+            }
+            window[next] = value;
+            if (++next == window.length) {
+                next = 0;
+            }
+            sum += value;
+            sumOfSquares += (double) value * value;
+        }
+
+        private boolean isFull() {
+            return count == window.length;
+        }
+
+        private double mean() {
+            return sum / count;
+        }
+
+        private double variance() {
+            double mean = mean();
+            return Math.max(0, sumOfSquares / count - mean * mean);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,196 @@
+package com.covid.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The `AreaIndex` class is a sorted dictionary of the names an area can be selected by: location
+ * names, continent names and ISO codes, all matched ignoring case.  It resolves a name to the area
+ * it stands for without touching the data, and suggests areas for names that do not match, by
+ * prefix or by edit distance.  With a few hundred names, a lookup is a binary search and a
+ * suggestion a pass over short strings, both in microseconds.
+ *
+ * The index is built once and never changes afterwards, so it can be shared by any number of threads.
+ */
+public final class AreaIndex {
+
+    private static final int MAX_EDIT_DISTANCE = 2; // Largest number of typos a suggestion may correct
+
+    private final String[] names; // Lower-case names, sorted
+    private final String[] areas; // Area each name stands for, as written in the data
+
+    /**
+     * Constructs an `AreaIndex` from names and the areas they stand for.
+     */
+    private AreaIndex(Map<String, String> areasByName) {
+        this.names = areasByName.keySet().toArray(new String[0]);
+        this.areas = areasByName.values().toArray(new String[0]);
+    }
+
+    /**
+     * Builds the index of the areas of a dataset.  Each location is listed under its name and its
+     * ISO code, and each continent under its name.  When a name is used for several things, a
+     * location name wins over a continent name, which wins over an ISO code.
+     *
+     * @param data The rows of the dataset, in any order.
+     * @return The index.
+     */
+    public static AreaIndex of(List<Data> data) {
+        Map<String, String> locations = new TreeMap<>();
+        Map<String, String> continents = new TreeMap<>();
+        Map<String, String> isoCodes = new TreeMap<>();
+        String previousLocation = null;
+        for (Data row : data) {
+            if (row == null || row.getLocation().equals(previousLocation)) {
+                continue; // Rows of a location are usually contiguous, look at each location once
+            }
+            previousLocation = row.getLocation();
+            locations.putIfAbsent(row.getLocation().toLowerCase(Locale.ROOT), row.getLocation());
+            if (!row.getContinent().isEmpty()) {
+                continents.putIfAbsent(row.getContinent().toLowerCase(Locale.ROOT), row.getContinent());
+            }
+            if (!row.getIsoCode().isEmpty()) {
+                isoCodes.putIfAbsent(row.getIsoCode().toLowerCase(Locale.ROOT), row.getLocation());
+            }
+        }
+
+        Map<String, String> areasByName = new TreeMap<>(isoCodes);
+        areasByName.putAll(continents);
+        areasByName.putAll(locations);
+        return new AreaIndex(areasByName);
+    }
+
+    /**
+     * Resolves a location name, continent name or ISO code to the area it stands for.
+     *
+     * @param name The name or ISO code (case-insensitive, surrounding spaces ignored).
+     * @return The area as written in the data (e.g. "Vietnam" for "vnm"), or null if there is none.
+     */
+    public String resolve(String name) {
+        if (name == null) {
+            return null;
+        }
+        int index = Arrays.binarySearch(names, name.trim().toLowerCase(Locale.ROOT));
+        return index >= 0 ? areas[index] : null;
+    }
+
+    /**
+     * Suggests areas for a name: first the areas with a name or ISO code starting with it, in name
+     * order, then the areas within a small edit distance of it (insertions, deletions, substitutions
+     * and swapped neighbours), closest first.
+     *
+     * @param name  The name typed by the user (case-insensitive, surrounding spaces ignored).
+     * @param limit The maximum number of suggestions.
+     * @return The suggested areas as written in the data, without duplicates; empty if the name is empty.
+     * @throws IllegalArgumentException if the limit is negative.
+     */
+    public List<String> suggest(String name, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        String text = name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+        Set<String> suggestions = new LinkedHashSet<>();
+        if (text.isEmpty()) {
+            return new ArrayList<>(suggestions);
+        }
+
+        // Prefix matches are a contiguous run of the sorted names
+        for (int i = lowerBound(text); i < names.length && suggestions.size() < limit && names[i].startsWith(text); i++) {
+            suggestions.add(areas[i]);
+        }
+
+        // Close matches, bucketed by distance so the closest come first
+        int maxDistance = Math.min(MAX_EDIT_DISTANCE, Math.max(1, text.length() / 3));
+        List<List<String>> byDistance = new ArrayList<>();
+        for (int d = 0; d <= maxDistance; d++) {
+            byDistance.add(new ArrayList<>());
+        }
+        int[][] rows = new int[3][text.length() + 1];
+        for (int i = 0; i < names.length; i++) {
+            if (Math.abs(names[i].length() - text.length()) <= maxDistance) {
+                int distance = editDistance(text, names[i], maxDistance, rows);
+                if (distance <= maxDistance) {
+                    byDistance.get(distance).add(areas[i]);
+                }
+            }
+        }
+        for (List<String> bucket : byDistance) {
+            for (String area : bucket) {
+                if (suggestions.size() >= limit) {
+                    break;
+                }
+                suggestions.add(area);
+            }
+        }
+        return new ArrayList<>(suggestions);
+    }
+
+    /**
+     * @return The number of names in the index.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Returns the index of the first name not smaller than the given text.
+     */
+    private int lowerBound(String text) {
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (names[mid].compareTo(text) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Computes the edit distance between two strings, counting a swap of neighbouring characters as
+     * one edit.  The computation stops as soon as the distance is known to exceed the maximum.
+     *
+     * @param rows Three rows of at least `a.length() + 1` entries, reused between calls.
+     * @return The distance, or `maxDistance + 1` if it exceeds the maximum.
+     */
+    private static int editDistance(String a, String b, int maxDistance, int[][] rows) {
+        int[] twoBack = rows[0];
+        int[] previous = rows[1];
+        int[] current = rows[2];
+        for (int i = 0; i <= a.length(); i++) {
+            previous[i] = i;
+        }
+        int previousRowMin = 0;
+        for (int j = 1; j <= b.length(); j++) {
+            current[0] = j;
+            int rowMin = j;
+            for (int i = 1; i <= a.length(); i++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(Math.min(current[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    distance = Math.min(distance, twoBack[i - 2] + 1);
+                }
+                current[i] = distance;
+                rowMin = Math.min(rowMin, distance);
+            }
+            if (rowMin > maxDistance && previousRowMin > maxDistance) {
+                return maxDistance + 1; // A swap reaches back two rows, so both must be out of range
+            }
+            previousRowMin = rowMin;
+            int[] recycled = twoBack;
+            twoBack = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[a.length()], maxDistance + 1);
+    }
+}
\ No newline at end of file
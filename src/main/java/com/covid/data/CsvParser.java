@@ -0,0 +1,268 @@
+package com.covid.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * The `CsvParser` class reads RFC 4180 CSV records from a character stream.  It handles quoted
+ * fields containing commas, line breaks and escaped quotes (""), and accepts LF, CRLF or CR line
+ * endings.  Blank lines are skipped.
+ *
+ * The fields of the current record are kept in a reusable character buffer and exposed as
+ * ranges, so numeric and date fields can be parsed without creating a `String`.  Text fields that
+ * repeat on every row (such as location names) can be read through `getPooledField`, which
+ * returns the same `String` instance for equal contents.
+ */
+final class CsvParser implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private enum State { FIELD_START, UNQUOTED, QUOTED, QUOTE_IN_QUOTED }
+
+    private final Reader reader;
+    private final char[] readBuffer = new char[READ_BUFFER_SIZE];
+    private int readPosition;           // Next unread position in the read buffer
+    private int readLimit;              // End of the valid characters in the read buffer
+    private boolean skipLineFeed;       // True if the previous record ended with CR, so a following LF is skipped
+
+    private char[] fieldChars = new char[256]; // Contents of all fields of the current record, back to back
+    private int charCount;                     // Number of characters used in fieldChars
+    private int[] fieldStarts = new int[16];   // Start of each field in fieldChars
+    private int[] fieldEnds = new int[16];     // End (exclusive) of each field in fieldChars
+    private int fieldCount;                    // Number of fields in the current record
+
+    private int lineNumber;             // Physical lines consumed so far
+    private int recordLineNumber;       // Physical line on which the current record starts
+
+    private final StringPool pool = new StringPool();
+
+    /**
+     * Constructs a `CsvParser` reading from the given stream.
+     *
+     * @param reader The character stream to read.  It is closed when the parser is closed.
+     */
+    CsvParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return True if a record was read, false at the end of the stream.
+     * @throws IOException If the stream cannot be read.
+     */
+    boolean nextRecord() throws IOException {
+        while (true) {
+            fieldCount = 0;
+            charCount = 0;
+            recordLineNumber = lineNumber + 1;
+
+            State state = State.FIELD_START;
+            boolean started = false; // True once any character of the record has been consumed
+            int fieldStart = 0;
+
+            while (true) {
+                if (readPosition == readLimit && !fill()) {
+                    if (!started) {
+                        return false;
+                    }
+                    lineNumber++; // Last line without a line terminator
+                    endField(fieldStart);
+                    break;
+                }
+                char c = readBuffer[readPosition++];
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (c == '\n') {
+                        continue;
+                    }
+                }
+                started = true;
+
+                if (state == State.QUOTED) {
+                    if (c == '"') {
+                        state = State.QUOTE_IN_QUOTED;
+                    } else {
+                        if (c == '\n') {
+                            lineNumber++; // Line break inside a quoted field
+                        }
+                        append(c);
+                    }
+                    continue;
+                }
+
+                if (c == ',') {
+                    endField(fieldStart);
+                    fieldStart = charCount;
+                    state = State.FIELD_START;
+                } else if (c == '\n' || c == '\r') {
+                    lineNumber++;
+                    skipLineFeed = (c == '\r');
+                    endField(fieldStart);
+                    break;
+                } else if (c == '"' && state == State.FIELD_START) {
+                    state = State.QUOTED;
+                } else if (c == '"' && state == State.QUOTE_IN_QUOTED) {
+                    append('"'); // Escaped quote
+                    state = State.QUOTED;
+                } else {
+                    append(c); // Characters after a closing quote are kept as-is
+                    state = State.UNQUOTED;
+                }
+            }
+
+            if (fieldCount == 1 && fieldEnds[0] == fieldStarts[0] && state != State.QUOTE_IN_QUOTED) {
+                continue; // Blank line
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return The number of fields in the current record.
+     */
+    int getFieldCount() { return fieldCount; }
+
+    /**
+     * @return The physical line number on which the current record starts.
+     */
+    int getLineNumber() { return recordLineNumber; }
+
+    /**
+     * @return The buffer holding the characters of the current record's fields.
+     */
+    char[] getBuffer() { return fieldChars; }
+
+    /**
+     * @param index The field index.
+     * @return The start of the field in the buffer.
+     */
+    int getFieldStart(int index) { return fieldStarts[index]; }
+
+    /**
+     * @param index The field index.
+     * @return The end (exclusive) of the field in the buffer.
+     */
+    int getFieldEnd(int index) { return fieldEnds[index]; }
+
+    /**
+     * @param index The field index.
+     * @return True if the field is empty.
+     */
+    boolean isFieldEmpty(int index) { return fieldStarts[index] == fieldEnds[index]; }
+
+    /**
+     * @param index The field index.
+     * @return A new `String` with the contents of the field.
+     */
+    String getField(int index) {
+        return new String(fieldChars, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    /**
+     * Returns the contents of a field, reusing the `String` returned for earlier fields with the same
+     * contents.  Only a new distinct value allocates.
+     *
+     * @param index The field index.
+     * @return The shared `String` with the contents of the field.
+     */
+    String getPooledField(int index) {
+        return pool.get(fieldChars, fieldStarts[index], fieldEnds[index]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(readBuffer, 0, readBuffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        readPosition = 0;
+        readLimit = read;
+        return true;
+    }
+
+    private void append(char c) {
+        if (charCount == fieldChars.length) {
+            fieldChars = Arrays.copyOf(fieldChars, fieldChars.length * 2);
+        }
+        fieldChars[charCount++] = c;
+    }
+
+    private void endField(int fieldStart) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = fieldStart;
+        fieldEnds[fieldCount] = charCount;
+        fieldCount++;
+    }
+
+    /**
+     * An open-addressing table of `String`s looked up by character range, so that a repeated value
+     * does not need a temporary `String` to be found.
+     */
+    private static final class StringPool {
+        private String[] table = new String[1024];
+        private int size;
+
+        String get(char[] chars, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + chars[i];
+            }
+            int mask = table.length - 1;
+            int slot = mix(hash) & mask;
+            String existing;
+            while ((existing = table[slot]) != null) {
+                if (existing.hashCode() == hash && matches(existing, chars, start, end)) {
+                    return existing;
+                }
+                slot = (slot + 1) & mask;
+            }
+            String value = new String(chars, start, end - start);
+            table[slot] = value;
+            if (++size * 2 > table.length) {
+                rehash();
+            }
+            return value;
+        }
+
+        private static boolean matches(String value, char[] chars, int start, int end) {
+            if (value.length() != end - start) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (value.charAt(i - start) != chars[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private void rehash() {
+            String[] old = table;
+            table = new String[old.length * 2];
+            int mask = table.length - 1;
+            for (String value : old) {
+                if (value != null) {
+                    int slot = mix(value.hashCode()) & mask;
+                    while (table[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    table[slot] = value;
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
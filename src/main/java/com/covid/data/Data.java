@@ -1,5 +1,7 @@
 package com.covid.data;
 
+import com.covid.util.EpochDays;
+
 import java.time.LocalDate;
 
 /**
@@ -10,7 +12,7 @@ public class Data {
     private final String isoCode;         // ISO code of the location
     private final String continent;        // Continent of the location
     private final String location;         // Name of the location (country, region, etc.)
-    private final LocalDate date;          // Date of the data record
+    private final int date;                // Date of the data record, as days since 1970-01-01
     private final int newCases;           // Number of new cases on the given date
     private final int newDeaths;           // Number of new deaths on the given date
     private final int peopleVaccinated;    // Number of people vaccinated on the given date
@@ -27,11 +29,31 @@ public class Data {
      * @param newDeaths           The number of new deaths.
      * @param peopleVaccinated    The number of people vaccinated.
      * @param population        The total population.
-     * @throws IllegalArgumentException if any of the string inputs are null or if any numeric inputs are negative.
+     * @throws IllegalArgumentException if any of the string inputs are null, if the date is outside the range of an
+     *                                  `int` epoch day, or if any numeric inputs are negative.
      */
     public Data(String isoCode, String continent, String location, LocalDate date,
                 int newCases, int newDeaths, int peopleVaccinated, long population) {
-        if (isoCode == null || continent == null || location == null || date == null) {
+        this(isoCode, continent, location, toEpochDay(date), newCases, newDeaths, peopleVaccinated, population);
+    }
+
+    /**
+     * Constructs a `Data` object with the date given as an epoch day.
+     *
+     * @param isoCode         The ISO code of the location.
+     * @param continent        The continent of the location.
+     * @param location         The name of the location.
+     * @param epochDay      The date of the data record, as days since 1970-01-01.
+     * @param newCases           The number of new cases.
+     * @param newDeaths           The number of new deaths.
+     * @param peopleVaccinated    The number of people vaccinated.
+     * @param population        The total population.
+     * @throws IllegalArgumentException if any of the string inputs are null, if the date is `EpochDays.INVALID`,
+     *                                  or if any numeric inputs are negative.
+     */
+    public Data(String isoCode, String continent, String location, int epochDay,
+                int newCases, int newDeaths, int peopleVaccinated, long population) {
+        if (isoCode == null || continent == null || location == null || epochDay == EpochDays.INVALID) {
             throw new IllegalArgumentException("ISO code, continent, location, and date must not be null");
         }
         if (newCases < 0 || newDeaths < 0 || peopleVaccinated < 0 || population < 0) {
@@ -40,7 +62,7 @@ public class Data {
         this.isoCode = isoCode;
         this.continent = continent;
         this.location = location;
-        this.date = date;
+        this.date = epochDay;
         this.newCases = newCases;
         this.newDeaths = newDeaths;
         this.peopleVaccinated = peopleVaccinated;
@@ -67,7 +89,12 @@ public class Data {
     /**
      * @return The date of the data record.
      */
-    public LocalDate getDate() { return date; }
+    public LocalDate getDate() { return LocalDate.ofEpochDay(date); }
+
+    /**
+     * @return The date of the data record, as days since 1970-01-01.
+     */
+    public int getEpochDay() { return date; }
 
     /**
      * @return The number of new cases.
@@ -98,6 +125,17 @@ public class Data {
     @Override
     public String toString() {
         return String.format("%s,%s,%s,%s,%d,%d,%d,%d",
-            isoCode, continent, location, date, newCases, newDeaths, peopleVaccinated, population);
+            isoCode, continent, location, getDate(), newCases, newDeaths, peopleVaccinated, population);
+    }
+
+    private static int toEpochDay(LocalDate date) {
+        if (date == null) {
+            return EpochDays.INVALID;
+        }
+        long epochDay = date.toEpochDay();
+        if (epochDay <= EpochDays.INVALID || epochDay > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Date out of range: " + date);
+        }
+        return (int) epochDay;
     }
 }
\ No newline at end of file
@@ -1,160 +1,512 @@
 package com.covid.data;
 
+import com.covid.metrics.Metrics;
+import com.covid.util.EpochDays;
 
-
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 /**
  * The `DataReader` class is responsible for reading and parsing COVID-19 data from a CSV file.
  * It handles file I/O, data validation, and filling in missing dates with default values.
+ * Gzip and zip compressed files are recognised by their content and decompressed on the fly.
  */
 public class DataReader {
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("M/d/yyyy"); // Date formatter for parsing dates
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024; // Size of file reads and decompressed chunks
+    private static final int PIPELINE_CHUNKS = 4;           // Decompressed chunks in flight between the two threads
+    private static final int ESTIMATED_BYTES_PER_ROW = 64;  // Heap used by a loaded row: the object and its list slots
+    private static final int BUDGET_CHECK_INTERVAL = 4096;  // Accepted rows between checks of the memory budget
+    private static final int PROJECTION_MIN_SHARE = 16;     // Memory is projected once 1/16 of the file has been read,
+    private static final long PROJECTION_MIN_BYTES = 4L << 20; // and at least 4 MB of it
+
+    public static final long UNLIMITED_MEMORY = Long.MAX_VALUE; // Memory budget that never aborts the load
 
     /**
-     * Reads COVID-19 data from a CSV file and returns a list of `Data` objects.
+     * Reads COVID-19 data from a CSV file and returns a list of `Data` objects.  Rejected rows are
+     * summarized on the error console once the file has been read.
      *
      * @param fileName The path to the CSV file.
      * @return A list of `Data` objects representing the data from the CSV file.
      * @throws IOException If an error occurs during file reading or if no valid data is found.
      */
     public static List<Data> readCSV(String fileName) throws IOException {
-        // Use a HashMap to store data grouped by location, then a TreeMap within each location to store data sorted by date.
-        Map<String, TreeMap<LocalDate, Data>> dataMap = new HashMap<>();
-
-
-        try (BufferedReader br = new BufferedReader(new FileReader(fileName))) { // Try-with-resources for automatic resource closure
-            String line;
-            br.readLine(); // Skip the header line
-
-            int lineNumber = 1; // Keep track of the current line number for error reporting
-            while ((line = br.readLine()) != null) {
-                lineNumber++;
-                try {
-                    String[] values = line.split(","); // Split the line into values based on commas
-                    if (values.length != 8) { // Check for the correct number of fields
-                        System.err.println("Skipping invalid line " + lineNumber + ": " + line);
-                        continue; // Skip the line if it has an invalid number of fields
-                    }
-                    Data data = parseData(values); // Parse the values into a Data object
-                    // Add the data to the map, creating a new TreeMap if the location is not already present
-                    dataMap
-                        .computeIfAbsent(data.getLocation(), k -> new TreeMap<>())
-                        .put(data.getDate(), data);
+        return readCSV(fileName, new ValidationReport());
+    }
+
+    /**
+     * Reads COVID-19 data from a CSV file and returns a list of `Data` objects, recording rejected
+     * rows in the given report.  The load is aborted as soon as the report's error budget is exceeded.
+     *
+     * @param fileName The path to the CSV file.
+     * @param report   The report collecting rejected rows.
+     * @return A list of `Data` objects representing the data from the CSV file.
+     * @throws IOException If an error occurs during file reading, if the error budget is exceeded,
+     *                     or if no valid data is found.
+     */
+    public static List<Data> readCSV(String fileName, ValidationReport report) throws IOException {
+        return readCSV(fileName, report, new AnomalyReport());
+    }
+
+    /**
+     * Reads COVID-19 data from a CSV file and returns a list of `Data` objects, recording rejected
+     * rows in the given report.  Once the missing dates are filled, each location's series is scanned
+     * for anomalies, which are recorded in the anomaly report and summarized on the error console.
+     *
+     * @param fileName  The path to the CSV file.
+     * @param report    The report collecting rejected rows.
+     * @param anomalies The report collecting anomalies, or null to skip the anomaly scan.
+     * @return A list of `Data` objects representing the data from the CSV file.
+     * @throws IOException If an error occurs during file reading, if the error budget is exceeded,
+     *                     or if no valid data is found.
+     */
+    public static List<Data> readCSV(String fileName, ValidationReport report, AnomalyReport anomalies) throws IOException {
+        return readCSV(fileName, report, anomalies, LoadFilter.ALL, UNLIMITED_MEMORY);
+    }
 
+    /**
+     * Reads the rows of a CSV file accepted by a filter and returns them as a list of `Data` objects.
+     * The filter is applied to the raw characters of each record, so skipped rows are neither
+     * validated nor turned into objects.  While reading, the heap needed by the loaded rows is
+     * estimated and projected to the end of the file: a projection above the memory budget is
+     * reported on the error console, and the load is aborted once the rows already loaded exceed it.
+     *
+     * @param fileName     The path to the CSV file.
+     * @param report       The report collecting rejected rows.
+     * @param anomalies    The report collecting anomalies, or null to skip the anomaly scan.
+     * @param filter       The rows to load.
+     * @param memoryBudget The heap, in bytes, the loaded rows may use, or `UNLIMITED_MEMORY`.
+     * @return A list of `Data` objects representing the selected data from the CSV file.
+     * @throws IOException If an error occurs during file reading, if the error or memory budget is
+     *                     exceeded, or if no valid data is found.
+     * @throws IllegalArgumentException if the report or filter is null, or the memory budget is not positive.
+     */
+    public static List<Data> readCSV(String fileName, ValidationReport report, AnomalyReport anomalies,
+                                     LoadFilter filter, long memoryBudget) throws IOException {
+        if (report == null || filter == null) {
+            throw new IllegalArgumentException("Validation report and load filter must not be null");
+        }
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive");
+        }
+        Metrics.Sample sample = Metrics.begin(Metrics.Stage.LOAD);
+        try {
+            return readAndFill(fileName, report, anomalies, filter, memoryBudget);
+        } finally {
+            Metrics.end(sample);
+        }
+    }
 
-                } catch (IllegalArgumentException e) {
-                    System.err.println("Error parsing line " + lineNumber + ": " + line + ". " + e.getMessage());
+    /**
+     * Reads the CSV file into a map grouped by location and fills in missing dates.
+     * @param fileName The path to the CSV file.
+     * @param report The report collecting rejected rows.
+     * @param anomalies The report collecting anomalies, or null to skip the anomaly scan.
+     * @param filter The rows to load.
+     * @param memoryBudget The heap, in bytes, the loaded rows may use.
+     * @return A list of `Data` objects with filled-in missing dates.
+     * @throws IOException If an error occurs during file reading, if the error or memory budget is exceeded,
+     *                     or if no valid data is found.
+     */
+    private static List<Data> readAndFill(String fileName, ValidationReport report, AnomalyReport anomalies,
+                                          LoadFilter filter, long memoryBudget) throws IOException {
+        // Use a HashMap to store data grouped by location, in file order within each location; dates are sorted when filling gaps.
+        Map<String, List<Data>> dataMap = new HashMap<>();
+
+
+        FileInputStream file = new FileInputStream(fileName);
+        try (CsvParser parser = new CsvParser(new InputStreamReader(openInput(file, fileName)))) { // Try-with-resources for automatic resource closure
+            if (!parser.nextRecord()) {
+                throw new IOException("The CSV file is empty.");
+            }
+            Columns columns = new Columns(parser); // Map the required columns by their header names
+            MemoryBudget budget = new MemoryBudget(memoryBudget, file.getChannel());
+
+            while (parser.nextRecord()) {
+                int lineNumber = parser.getLineNumber(); // Line on which the record starts, for error reporting
+                Metrics.increment(Metrics.Counter.ROWS_READ);
+                if (!isSelected(parser, columns, filter)) {
+                    Metrics.increment(Metrics.Counter.ROWS_SKIPPED);
+                    continue; // Not wanted, skip it before creating anything
+                }
+                Data data = parseData(parser, columns, report, lineNumber); // Parse the fields into a Data object
+                if (data == null) {
+                    Metrics.increment(Metrics.Counter.ROWS_REJECTED);
+                    if (report.isBudgetExceeded()) {
+                        System.err.print(report);
+                        throw new IOException("Aborting load: more than " + report.getErrorBudget()
+                            + " invalid rows (last at line " + lineNumber + ")");
+                    }
+                    continue; // Skip the record, the report has recorded why
                 }
+                report.recordAccepted();
+                if (report.getAcceptedRows() % BUDGET_CHECK_INTERVAL == 0) {
+                    budget.check(report.getAcceptedRows(), filter);
+                }
+                // Add the data to the map, creating a new list if the location is not already present
+                dataMap
+                    .computeIfAbsent(data.getLocation(), k -> new ArrayList<>())
+                    .add(data);
             }
+            budget.check(report.getAcceptedRows(), filter);
         }
 
+        if (report.getTotalErrors() > 0) {
+            System.err.print(report); // One summary instead of a message per rejected row
+        }
 
-        List<Data> filledData = fillMissingDates(dataMap); // Fill in missing dates with default values
+        Metrics.Sample fillSample = Metrics.begin(Metrics.Stage.GAP_FILL);
+        List<Data> filledData;
+        try {
+            filledData = fillMissingDates(dataMap, anomalies); // Fill in missing dates with default values
+        } finally {
+            Metrics.end(fillSample);
+        }
 
         if (filledData.isEmpty()) {
             throw new IOException("No valid data was read from the CSV file.");
         }
 
+        if (anomalies != null) {
+            Metrics.Sample scanSample = Metrics.begin(Metrics.Stage.ANOMALY_SCAN);
+            try {
+                anomalies.merge(new AnomalyScanner().scan(filledData));
+            } finally {
+                Metrics.end(scanSample);
+            }
+            if (anomalies.getTotal() > 0) {
+                System.err.print(anomalies);
+            }
+        }
+
         return filledData;
     }
 
 
+    /**
+     * Opens a data file for reading.  Gzip and zip files are detected from their first bytes rather
+     * than their names; they are decompressed on a background thread so that inflating the next chunk
+     * overlaps with parsing the current one.  For zip files the first file entry is read.
+     * @param file The opened data file, closed with the returned stream or on error.
+     * @param fileName The path to the data file, for error messages.
+     * @return A stream of the uncompressed file contents.
+     * @throws IOException If the file cannot be read, or a zip file has no file entries.
+     */
+    private static InputStream openInput(FileInputStream file, String fileName) throws IOException {
+        InputStream in = new BufferedInputStream(file, INPUT_BUFFER_SIZE);
+        try {
+            in.mark(4);
+            int b0 = in.read();
+            int b1 = in.read();
+            int b2 = in.read();
+            int b3 = in.read();
+            in.reset();
+
+            InputStream decompressed;
+            if (b0 == 0x1F && b1 == 0x8B) { // Gzip magic number
+                decompressed = new GZIPInputStream(in, INPUT_BUFFER_SIZE);
+            } else if (b0 == 'P' && b1 == 'K' && b2 == 3 && b3 == 4) { // Zip local file header
+                ZipInputStream zip = new ZipInputStream(in);
+                ZipEntry entry = zip.getNextEntry();
+                while (entry != null && entry.isDirectory()) {
+                    entry = zip.getNextEntry();
+                }
+                if (entry == null) {
+                    throw new IOException("Zip file contains no data file: " + fileName);
+                }
+                decompressed = zip;
+            } else {
+                return in; // Plain text, nothing to overlap with parsing
+            }
+            return new PipelinedInputStream(decompressed, INPUT_BUFFER_SIZE, PIPELINE_CHUNKS, "csv-inflater");
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
     /**
      * Fills in missing dates in the data map with default `Data` objects.  This ensures that each location has a continuous date range.
-     * @param dataMap The map containing the data read from the CSV, grouped by location and sorted by date within each location.
-     * @return A list of `Data` objects with filled-in missing dates.
+     * Dates are compared as epoch days, so a gap is simply a difference of more than one between consecutive rows.
+     * If a location has several rows for the same date, the last one read is kept and the duplicate is recorded.
+     * @param dataMap The map containing the data read from the CSV, grouped by location in file order.
+     * @param anomalies The report recording duplicate dates, or null.
+     * @return A list of `Data` objects with filled-in missing dates, sorted by location and then by date.
      */
-    private static List<Data> fillMissingDates(Map<String, TreeMap<LocalDate, Data>> dataMap) {
+    private static List<Data> fillMissingDates(Map<String, List<Data>> dataMap, AnomalyReport anomalies) {
         List<Data> filledData = new ArrayList<>();
 
-        for (Map.Entry<String, TreeMap<LocalDate, Data>> entry : dataMap.entrySet()) {
-            String location = entry.getKey();
-            TreeMap<LocalDate, Data> locationData = entry.getValue();
-
-            if (!locationData.isEmpty()) {
-                LocalDate startDate = locationData.firstKey(); // Get the first date for the location
-                LocalDate endDate = locationData.lastKey();   // Get the last date for the location
-                LocalDate currentDate = startDate;
-
-                Data firstEntry = locationData.firstEntry().getValue(); // Get the first data entry for location information
-                long lastPopulation = firstEntry.getPopulation(); // Track the last known population
-
-                while (!currentDate.isAfter(endDate)) {
-                    Data data = locationData.get(currentDate);
-                    if (data == null) {
-                        // Create a new Data object with zero values for missing dates, using the last known population
-                        data = new Data(
-                            firstEntry.getIsoCode(),
-                            firstEntry.getContinent(),
-                            location,
-                            currentDate,
-                            0, 0, 0,
-                            lastPopulation
-                        );
-
-                    } else {
-                        lastPopulation = data.getPopulation(); // Update last known population
+        // Visit the locations in name order so the result comes out sorted without a final sort
+        List<String> locations = new ArrayList<>(dataMap.keySet());
+        Collections.sort(locations);
+
+        for (String location : locations) {
+            List<Data> locationData = dataMap.get(location);
+            if (locationData.isEmpty()) {
+                continue;
+            }
+            locationData.sort(Comparator.comparingInt(Data::getEpochDay)); // Stable, and linear when already in order
+
+            Data firstEntry = locationData.get(0); // Get the first data entry for location information
+            long lastPopulation = firstEntry.getPopulation(); // Track the last known population
+            int previousDate = firstEntry.getEpochDay() - 1;
+
+            for (Data data : locationData) {
+                int date = data.getEpochDay();
+                if (date == previousDate) {
+                    filledData.set(filledData.size() - 1, data); // Duplicate date, the later row wins
+                    if (anomalies != null) {
+                        anomalies.record(AnomalyReport.AnomalyType.DUPLICATE_DATE, location, date);
                     }
-                    filledData.add(data);
-                    currentDate = currentDate.plusDays(1); // Move to the next date
+                    lastPopulation = data.getPopulation();
+                    continue;
+                }
+                for (int missingDate = previousDate + 1; missingDate < date; missingDate++) {
+                    // Create a new Data object with zero values for missing dates, using the last known population
+                    filledData.add(new Data(
+                        firstEntry.getIsoCode(),
+                        firstEntry.getContinent(),
+                        location,
+                        missingDate,
+                        0, 0, 0,
+                        lastPopulation
+                    ));
+                    Metrics.increment(Metrics.Counter.ROWS_FILLED);
                 }
+                lastPopulation = data.getPopulation(); // Update last known population
+                filledData.add(data);
+                previousDate = date;
             }
         }
 
-        // Sort the filled data by location and then by date
-        filledData.sort(Comparator.comparing(Data::getLocation).thenComparing(Data::getDate));
         return filledData;
     }
 
-    private static Data parseData(String[] values) {
-        if (values.length != 8) {
-            throw new IllegalArgumentException("Invalid number of fields. Expected 8, got " + values.length);
+    /**
+     * Checks the current record against the load filter, using only the parser's buffer.  Records too
+     * short to hold the columns, or with a date that cannot be parsed, are selected so that
+     * validation reports them.
+     * @param parser The parser positioned on the record.
+     * @param columns The positions of the required columns.
+     * @param filter The rows to load.
+     * @return True if the record should be parsed and loaded.
+     */
+    private static boolean isSelected(CsvParser parser, Columns columns, LoadFilter filter) {
+        if (parser.getFieldCount() <= columns.maxIndex) {
+            return true;
+        }
+        char[] chars = parser.getBuffer();
+        if (filter.hasAreas() && !filter.matchesArea(chars,
+                parser.getFieldStart(columns.location), parser.getFieldEnd(columns.location),
+                parser.getFieldStart(columns.continent), parser.getFieldEnd(columns.continent))) {
+            return false;
         }
+        if (filter.hasDateRange()) {
+            int date = EpochDays.parse(chars, parser.getFieldStart(columns.date), parser.getFieldEnd(columns.date));
+            return date == EpochDays.INVALID || filter.matchesDate(date);
+        }
+        return true;
+    }
 
-        String isoCode = values[0];
-        String continent = values[1];
-        String location = values[2];
-        LocalDate date;
-        try {
-            date = LocalDate.parse(values[3], DATE_FORMATTER);
-        } catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Invalid date format: " + values[3]);
+    /**
+     * Parses the fields of the current record into a `Data` object.  Invalid rows are recorded in the
+     * report without building an exception or message, so rejecting a row costs no allocation.  Numbers
+     * and dates are parsed straight from the parser's buffer, and the repeated text fields are pooled.
+     * @param parser The parser positioned on the record.
+     * @param columns The positions of the required columns.
+     * @param report The report collecting rejected rows.
+     * @param lineNumber The line number of the row, for the report.
+     * @return The parsed `Data` object, or null if the row was rejected.
+     */
+    private static Data parseData(CsvParser parser, Columns columns, ValidationReport report, int lineNumber) {
+        if (parser.getFieldCount() <= columns.maxIndex) {
+            report.recordError(ValidationReport.ErrorType.FIELD_COUNT, lineNumber);
+            return null;
+        }
+        if (parser.isFieldEmpty(columns.location) || parser.isFieldEmpty(columns.date)) {
+            report.recordError(ValidationReport.ErrorType.MISSING_FIELD, lineNumber);
+            return null;
+        }
+
+        char[] chars = parser.getBuffer();
+        int date = EpochDays.parse(chars, parser.getFieldStart(columns.date), parser.getFieldEnd(columns.date));
+        if (date == EpochDays.INVALID) {
+            report.recordError(ValidationReport.ErrorType.INVALID_DATE, lineNumber);
+            return null;
+        }
+        int newCases = parseIntOrZero(parser, columns.newCases);
+        int newDeaths = parseIntOrZero(parser, columns.newDeaths);
+        int peopleVaccinated = parseIntOrZero(parser, columns.peopleVaccinated);
+        long population = parseLongOrZero(parser, columns.population);
+        if (newCases < 0 || newDeaths < 0 || peopleVaccinated < 0 || population < 0) {
+            report.recordError(ValidationReport.ErrorType.NEGATIVE_VALUE, lineNumber);
+            return null;
         }
-        int newCases = parseIntOrZero(values[4]);
-        int newDeaths = parseIntOrZero(values[5]);
-        int peopleVaccinated = parseIntOrZero(values[6]);
-        long population = parseLongOrZero(values[7]);
 
+        String isoCode = parser.getPooledField(columns.isoCode);
+        String continent = parser.getPooledField(columns.continent);
+        String location = parser.getPooledField(columns.location);
         return new Data(isoCode, continent, location, date, newCases, newDeaths, peopleVaccinated, population);
     }
 
-    private static int parseIntOrZero(String value) {
-        if (value == null || value.trim().isEmpty()) {
-            return 0;
+    private static int parseIntOrZero(CsvParser parser, int index) {
+        long value = parseLongOrZero(parser, index);
+        return (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) ? 0 : (int) value;
+    }
+
+    /**
+     * Parses a whole number field, treating empty or malformed values as zero.  Surrounding spaces
+     * and a fractional part of zeros (e.g. "125.0", as written by upstream exports) are accepted.
+     */
+    private static long parseLongOrZero(CsvParser parser, int index) {
+        char[] chars = parser.getBuffer();
+        int start = parser.getFieldStart(index);
+        int end = parser.getFieldEnd(index);
+        while (start < end && chars[start] == ' ') {
+            start++;
         }
-        try {
-            return Integer.parseInt(value.trim());
-        } catch (NumberFormatException e) {
-            return 0;
+        while (end > start && chars[end - 1] == ' ') {
+            end--;
+        }
+        int dot = start;
+        while (dot < end && chars[dot] != '.') {
+            dot++;
+        }
+        for (int i = dot + 1; i < end; i++) {
+            if (chars[i] != '0') {
+                return 0;
+            }
+        }
+        end = dot;
+        boolean negative = start < end && chars[start] == '-';
+        if (negative || (start < end && chars[start] == '+')) {
+            start++;
+        }
+        if (start == end || end - start > 18) {
+            return 0; // Empty, or too long to be parsed without overflow
+        }
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            result = result * 10 + (c - '0');
         }
+        return negative ? -result : result;
     }
 
-    private static long parseLongOrZero(String value) {
-        if (value == null || value.trim().isEmpty()) {
-            return 0;
+    /**
+     * Tracks the heap needed by the rows loaded so far against the memory budget, and projects it to
+     * the end of the file from the share of the file read.  The share is taken from the position of
+     * the underlying file, so it is also right for compressed files.
+     */
+    private static final class MemoryBudget {
+        private final long budget;          // Heap the loaded rows may use, in bytes
+        private final FileChannel channel;  // The file being read, for its size and position
+        private boolean projectionReported; // Whether an excessive projection has been reported
+
+        private MemoryBudget(long budget, FileChannel channel) {
+            this.budget = budget;
+            this.channel = channel;
         }
-        try {
-            return Long.parseLong(value.trim());
-        } catch (NumberFormatException e) {
-            return 0;
+
+        private void check(long acceptedRows, LoadFilter filter) throws IOException {
+            if (budget == UNLIMITED_MEMORY) {
+                return;
+            }
+            long used = acceptedRows * ESTIMATED_BYTES_PER_ROW;
+            if (used > budget) {
+                throw new IOException("Aborting load: the " + acceptedRows + " rows loaded so far need about "
+                    + megabytes(used) + " MB, more than the memory budget of " + megabytes(budget)
+                    + " MB (loading " + filter + ")");
+            }
+            if (projectionReported) {
+                return;
+            }
+            long size;
+            long position;
+            try {
+                size = channel.size();
+                position = channel.position();
+            } catch (ClosedChannelException e) {
+                return; // The whole file has been read ahead, nothing left to project
+            }
+            // Until enough has been read, the buffers reading ahead of the parser skew the projection
+            if (position >= Math.max(size / PROJECTION_MIN_SHARE, PROJECTION_MIN_BYTES)) {
+                long projected = (long) (used * ((double) size / Math.min(position, size)));
+                if (projected > budget) {
+                    projectionReported = true;
+                    System.err.println("Warning: the data is projected to need about " + megabytes(projected)
+                        + " MB, more than the memory budget of " + megabytes(budget) + " MB (loading " + filter + ")");
+                }
+            }
+        }
+
+        private static String megabytes(long bytes) {
+            return String.format("%.1f", bytes / (double) (1 << 20));
+        }
+    }
+
+    /**
+     * The positions of the required columns, looked up by name in the header record so that wider
+     * files with extra or reordered columns can be read directly.  Header names are matched ignoring
+     * case, spaces and punctuation (e.g. "new_cases" and "New Cases" are the same column).
+     */
+    private static final class Columns {
+        private final int isoCode;
+        private final int continent;
+        private final int location;
+        private final int date;
+        private final int newCases;
+        private final int newDeaths;
+        private final int peopleVaccinated;
+        private final int population;
+        private final int maxIndex; // Highest required column index, a record needs more fields than this
+
+        private Columns(CsvParser header) throws IOException {
+            Map<String, Integer> indexes = new HashMap<>();
+            for (int i = 0; i < header.getFieldCount(); i++) {
+                indexes.putIfAbsent(normalize(header.getField(i)), i);
+            }
+            isoCode = require(indexes, "iso_code");
+            continent = require(indexes, "continent");
+            location = require(indexes, "location");
+            date = require(indexes, "date");
+            newCases = require(indexes, "new_cases");
+            newDeaths = require(indexes, "new_deaths");
+            peopleVaccinated = require(indexes, "people_vaccinated");
+            population = require(indexes, "population");
+            maxIndex = Collections.max(Arrays.asList(
+                isoCode, continent, location, date, newCases, newDeaths, peopleVaccinated, population));
+        }
+
+        private static int require(Map<String, Integer> indexes, String name) throws IOException {
+            Integer index = indexes.get(normalize(name));
+            if (index == null) {
+                throw new IOException("Missing required column in CSV header: " + name);
+            }
+            return index;
+        }
+
+        private static String normalize(String name) {
+            StringBuilder sb = new StringBuilder(name.length());
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    sb.append(Character.toLowerCase(c));
+                }
+            }
+            return sb.toString();
         }
     }
 }
\ No newline at end of file
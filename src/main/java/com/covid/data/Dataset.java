@@ -0,0 +1,222 @@
+package com.covid.data;
+
+import com.covid.util.DateRange;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The `Dataset` class is a read-only view of the loaded data, indexed by area so that the rows of a
+ * location or continent within a date range can be selected without scanning every row.  Areas can
+ * also be selected by the ISO code of a location, and unknown names get suggestions from an
+ * `AreaIndex` instead of a scan.  It is built once and never changes afterwards, so any number of
+ * threads can select from it at the same time without copying or locking.
+ */
+public class Dataset {
+
+    private final List<Data> data;                            // All rows, read-only
+    private final Map<String, List<List<Data>>> seriesByArea; // Area name (lower case) -> date-sorted rows of each member location
+    private final AreaIndex areaIndex;                        // Location names, continent names and ISO codes -> area
+    private final List<String> locations;                     // Location names as written in the data, in load order
+
+    /**
+     * Constructs a `Dataset` over the loaded data.  The list must not be changed afterwards.
+     *
+     * @param data The complete list of `Data` objects, typically as returned by `DataReader.readCSV`.
+     * @throws IllegalArgumentException if the data list is null.
+     */
+    public Dataset(List<Data> data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data list must not be null");
+        }
+        this.data = Collections.unmodifiableList(data);
+        List<String> locations = new ArrayList<>();
+        this.seriesByArea = indexByArea(data, locations);
+        this.locations = Collections.unmodifiableList(locations);
+        this.areaIndex = AreaIndex.of(data);
+    }
+
+    /**
+     * @return All rows of the dataset, read-only.
+     */
+    public List<Data> getData() { return data; }
+
+    /**
+     * @return The names of the locations in the dataset, as written in the data, in the order they were loaded.
+     */
+    public List<String> getLocations() { return locations; }
+
+    /**
+     * @param area The location or continent name, or a location's ISO code (case-insensitive).
+     * @return True if the dataset has rows for the area.
+     */
+    public boolean containsArea(String area) {
+        return resolveArea(area) != null;
+    }
+
+    /**
+     * Resolves a location name, continent name or ISO code to the area it stands for.
+     *
+     * @param area The location or continent name, or a location's ISO code (case-insensitive).
+     * @return The area as written in the data (e.g. "Vietnam" for "VNM"), or null if the dataset has no such area.
+     */
+    public String resolveArea(String area) {
+        return areaIndex.resolve(area);
+    }
+
+    /**
+     * Suggests areas for a name that may be misspelled or incomplete.
+     *
+     * @param area  The name typed by the user.
+     * @param limit The maximum number of suggestions.
+     * @return The suggested areas, best first; see `AreaIndex.suggest`.
+     */
+    public List<String> suggestAreas(String area, int limit) {
+        return areaIndex.suggest(area, limit);
+    }
+
+    /**
+     * Returns the complete series of each location of an area, in the order `select` concatenates
+     * them, so that per-location work can be split and merged back in the same order.
+     *
+     * @param area The location or continent name, or a location's ISO code (case-insensitive).
+     * @return The read-only, date-sorted series of each member location; empty if the area is unknown.
+     */
+    public List<List<Data>> getSeries(String area) {
+        String resolved = areaIndex.resolve(area);
+        if (resolved == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(seriesByArea.getOrDefault(resolved.toLowerCase(Locale.ROOT), Collections.emptyList()));
+    }
+
+    /**
+     * Selects the rows of an area within a date range, in the same order as the loaded data
+     * (by location, then by date).  Each location's rows are found by binary search, and a single
+     * location's selection is a view rather than a copy.
+     *
+     * @param area      The location or continent name, or a location's ISO code (case-insensitive).
+     * @param dateRange The date range to select.
+     * @return The selected rows, read-only; empty if the area is unknown.
+     * @throws IllegalArgumentException if the area or date range is null.
+     */
+    public List<Data> select(String area, DateRange dateRange) {
+        if (area == null || dateRange == null) {
+            throw new IllegalArgumentException("Area and date range must not be null");
+        }
+        String resolved = areaIndex.resolve(area);
+        if (resolved == null) {
+            return Collections.emptyList();
+        }
+        List<List<Data>> series = seriesByArea.getOrDefault(resolved.toLowerCase(Locale.ROOT), Collections.emptyList());
+        if (series.size() == 1) {
+            return slice(series.get(0), dateRange);
+        }
+        List<Data> selected = new ArrayList<>();
+        for (List<Data> locationSeries : series) {
+            selected.addAll(slice(locationSeries, dateRange));
+        }
+        return Collections.unmodifiableList(selected);
+    }
+
+    /**
+     * Groups the rows by location, sorted by date, and lists each location under its own name and
+     * its continent, matching the way the user interface selects data.  When each location's rows
+     * are already contiguous and in date order (as returned by `DataReader.readCSV`), the series are
+     * views of the loaded list rather than copies, so an off-heap dataset stays off the heap.  The
+     * location names are added to the given list.
+     */
+    private static Map<String, List<List<Data>>> indexByArea(List<Data> allData, List<String> locations) {
+        Map<String, List<Data>> byLocation = new LinkedHashMap<>();
+        if (!indexRuns(allData, byLocation)) {
+            byLocation.clear();
+            for (Data data : allData) {
+                if (data != null) {
+                    byLocation.computeIfAbsent(data.getLocation(), k -> new ArrayList<>()).add(data);
+                }
+            }
+            byLocation.values().forEach(series -> series.sort(Comparator.comparingInt(Data::getEpochDay)));
+        }
+
+        Map<String, List<List<Data>>> byArea = new HashMap<>();
+        for (List<Data> series : byLocation.values()) {
+            List<Data> readOnly = Collections.unmodifiableList(series);
+            Data first = series.get(0);
+            locations.add(first.getLocation());
+            String location = first.getLocation().toLowerCase(Locale.ROOT);
+            String continent = first.getContinent().toLowerCase(Locale.ROOT);
+            byArea.computeIfAbsent(location, k -> new ArrayList<>()).add(readOnly);
+            if (!continent.isEmpty() && !continent.equals(location)) {
+                byArea.computeIfAbsent(continent, k -> new ArrayList<>()).add(readOnly);
+            }
+        }
+        return byArea;
+    }
+
+    /**
+     * Indexes each location as a view over its run of rows, if every location is one contiguous run
+     * in increasing date order.
+     *
+     * @return False if the data is not laid out that way.
+     */
+    private static boolean indexRuns(List<Data> allData, Map<String, List<Data>> byLocation) {
+        int runStart = 0;
+        String runLocation = null;
+        int previousDate = Integer.MIN_VALUE;
+        for (int i = 0; i < allData.size(); i++) {
+            Data data = allData.get(i);
+            if (data == null) {
+                return false;
+            }
+            if (!data.getLocation().equals(runLocation)) {
+                if (runLocation != null) {
+                    byLocation.put(runLocation, allData.subList(runStart, i));
+                }
+                if (byLocation.containsKey(data.getLocation())) {
+                    return false; // Location split over several runs
+                }
+                runStart = i;
+                runLocation = data.getLocation();
+            } else if (data.getEpochDay() <= previousDate) {
+                return false; // Dates out of order
+            }
+            previousDate = data.getEpochDay();
+        }
+        if (runLocation != null) {
+            byLocation.put(runLocation, allData.subList(runStart, allData.size()));
+        }
+        return true;
+    }
+
+    /**
+     * Returns the part of a date-sorted series within a date range, as a view.
+     */
+    private static List<Data> slice(List<Data> series, DateRange dateRange) {
+        int from = lowerBound(series, dateRange.getStartEpochDay());
+        int to = lowerBound(series, dateRange.getEndEpochDay() + 1);
+        return series.subList(from, Math.max(from, to));
+    }
+
+    /**
+     * Returns the index of the first row of a date-sorted series on or after the given date.
+     */
+    private static int lowerBound(List<Data> series, int epochDay) {
+        int low = 0;
+        int high = series.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (series.get(mid).getEpochDay() < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
\ No newline at end of file
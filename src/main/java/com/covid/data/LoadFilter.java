@@ -0,0 +1,146 @@
+package com.covid.data;
+
+import com.covid.util.DateRange;
+
+import java.util.Locale;
+
+/**
+ * The `LoadFilter` class describes which rows of a data file are loaded: rows of the given areas
+ * (locations or continents, as selected in the user interface) within a date window.  It is
+ * evaluated by `DataReader` on the raw characters of each record, before any object is created
+ * for the row, so a slice of a large file can be loaded in a small amount of memory.
+ *
+ * A filter is immutable; the `with...` methods return a new filter.
+ */
+public final class LoadFilter {
+
+    /**
+     * A filter accepting every row.
+     */
+    public static final LoadFilter ALL = new LoadFilter(new char[0][], null);
+
+    private final char[][] areas;      // Lower-case names of the areas to load, or empty for all areas
+    private final DateRange dateRange; // Dates to load, or null for all dates
+
+    private LoadFilter(char[][] areas, DateRange dateRange) {
+        this.areas = areas;
+        this.dateRange = dateRange;
+    }
+
+    /**
+     * Returns a copy of this filter loading only the given areas.  A row is loaded if its location
+     * or its continent is one of the areas.
+     *
+     * @param areas The location or continent names (case-insensitive).
+     * @return The new filter.
+     * @throws IllegalArgumentException if no area is given, or an area is null or empty.
+     */
+    public LoadFilter withAreas(String... areas) {
+        if (areas == null || areas.length == 0) {
+            throw new IllegalArgumentException("At least one area must be given");
+        }
+        char[][] names = new char[areas.length][];
+        for (int i = 0; i < areas.length; i++) {
+            if (areas[i] == null || areas[i].trim().isEmpty()) {
+                throw new IllegalArgumentException("Area names must not be empty");
+            }
+            names[i] = areas[i].trim().toLowerCase(Locale.ROOT).toCharArray(); // Rows are compared with Character.toLowerCase, which ignores the locale
+        }
+        return new LoadFilter(names, dateRange);
+    }
+
+    /**
+     * Returns a copy of this filter loading only the rows within a date range.
+     *
+     * @param dateRange The dates to load.
+     * @return The new filter.
+     * @throws IllegalArgumentException if the date range is null.
+     */
+    public LoadFilter withDateRange(DateRange dateRange) {
+        if (dateRange == null) {
+            throw new IllegalArgumentException("Date range must not be null");
+        }
+        return new LoadFilter(areas, dateRange);
+    }
+
+    /**
+     * @return True if the filter only loads some areas.
+     */
+    public boolean hasAreas() {
+        return areas.length > 0;
+    }
+
+    /**
+     * @return True if the filter only loads some dates.
+     */
+    public boolean hasDateRange() {
+        return dateRange != null;
+    }
+
+    /**
+     * Checks the location and continent of a row, given as ranges of a character buffer.
+     *
+     * @param chars          The buffer holding the fields.
+     * @param locationStart  The index of the first character of the location.
+     * @param locationEnd    The index after the last character of the location.
+     * @param continentStart The index of the first character of the continent.
+     * @param continentEnd   The index after the last character of the continent.
+     * @return True if the row belongs to one of the areas, or the filter accepts all areas.
+     */
+    public boolean matchesArea(char[] chars, int locationStart, int locationEnd, int continentStart, int continentEnd) {
+        if (areas.length == 0) {
+            return true;
+        }
+        for (char[] area : areas) {
+            if (equalsIgnoreCase(area, chars, locationStart, locationEnd)
+                || equalsIgnoreCase(area, chars, continentStart, continentEnd)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param epochDay The date of a row, as days since 1970-01-01.
+     * @return True if the date is within the date range, or the filter accepts all dates.
+     */
+    public boolean matchesDate(int epochDay) {
+        return dateRange == null || dateRange.contains(epochDay);
+    }
+
+    /**
+     * Compares a lower-case name with a range of characters, ignoring case and surrounding spaces.
+     */
+    private static boolean equalsIgnoreCase(char[] name, char[] chars, int start, int end) {
+        while (start < end && chars[start] == ' ') {
+            start++;
+        }
+        while (end > start && chars[end - 1] == ' ') {
+            end--;
+        }
+        if (end - start != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            char c = chars[start + i];
+            if (c != name[i] && Character.toLowerCase(c) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (areas.length == 0) {
+            sb.append("all areas");
+        } else {
+            for (char[] area : areas) {
+                sb.append(sb.length() == 0 ? "" : "; ").append(area);
+            }
+        }
+        sb.append(dateRange == null ? ", all dates" : ", " + dateRange);
+        return sb.toString();
+    }
+}
\ No newline at end of file
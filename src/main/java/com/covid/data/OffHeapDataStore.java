@@ -0,0 +1,234 @@
+package com.covid.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * The `OffHeapDataStore` class keeps a dataset outside the Java heap, so that the garbage collector
+ * does not have to trace years of daily rows on every collection.  The date and metric columns are
+ * stored in direct or memory-mapped buffers; the heap only holds a small dictionary of the distinct
+ * (ISO code, continent, location) combinations.
+ *
+ * The store is a read-only `List<Data>` and can be used anywhere the loaded data is, including
+ * `Summary`, `RollupCube` and `SummaryExecutor`.  `get` builds a short-lived `Data` object from the
+ * columns; the column accessors read single values without creating any object.  Reads do not
+ * change any state, so the store can be shared by any number of threads.
+ *
+ * Only the stored columns are kept off the heap, not the work done on them.  Selecting a continent
+ * with `Dataset.select` copies its rows into a list of `Data` objects, `Summary` groups them, and a
+ * `SummaryExecutor` batch keeps int and long prefix sums of every location it touches until the
+ * batch ends.  Heap use therefore grows with the size of a query or batch, and is released when it
+ * ends, while the size of the dataset only weighs on the heap through the indexes and dictionary.
+ */
+public class OffHeapDataStore extends AbstractList<Data> implements RandomAccess {
+
+    private static final int INT_BYTES = Integer.BYTES;
+    private static final int LONG_BYTES = Long.BYTES;
+    private static final int ROW_BYTES = 5 * INT_BYTES + LONG_BYTES; // Key, date, cases, deaths, vaccinated, population
+
+    private final int size;                 // Number of rows
+    private final String[] isoCodes;        // Dictionary: key -> ISO code
+    private final String[] continents;      // Dictionary: key -> continent
+    private final String[] locations;       // Dictionary: key -> location
+    private final ByteBuffer keys;          // Column: dictionary key of each row
+    private final ByteBuffer dates;         // Column: epoch day of each row
+    private final ByteBuffer newCases;      // Column: new cases of each row
+    private final ByteBuffer newDeaths;     // Column: new deaths of each row
+    private final ByteBuffer vaccinated;    // Column: people vaccinated of each row
+    private final ByteBuffer populations;   // Column: population of each row
+
+    private OffHeapDataStore(List<Data> data, ByteBuffer storage) {
+        this.size = data.size();
+        this.keys = column(storage, 0, INT_BYTES);
+        this.dates = column(storage, 1, INT_BYTES);
+        this.newCases = column(storage, 2, INT_BYTES);
+        this.newDeaths = column(storage, 3, INT_BYTES);
+        this.vaccinated = column(storage, 4, INT_BYTES);
+        this.populations = column(storage, 5, LONG_BYTES);
+
+        Map<List<String>, Integer> dictionary = new HashMap<>();
+        List<String[]> entries = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Data row = data.get(i);
+            List<String> names = List.of(row.getIsoCode(), row.getContinent(), row.getLocation());
+            Integer key = dictionary.get(names);
+            if (key == null) {
+                key = entries.size();
+                dictionary.put(names, key);
+                entries.add(names.toArray(new String[0]));
+            }
+            keys.putInt(i * INT_BYTES, key);
+            dates.putInt(i * INT_BYTES, row.getEpochDay());
+            newCases.putInt(i * INT_BYTES, row.getNewCases());
+            newDeaths.putInt(i * INT_BYTES, row.getNewDeaths());
+            vaccinated.putInt(i * INT_BYTES, row.getPeopleVaccinated());
+            populations.putLong(i * LONG_BYTES, row.getPopulation());
+        }
+
+        this.isoCodes = new String[entries.size()];
+        this.continents = new String[entries.size()];
+        this.locations = new String[entries.size()];
+        for (int key = 0; key < entries.size(); key++) {
+            isoCodes[key] = entries.get(key)[0];
+            continents[key] = entries.get(key)[1];
+            locations[key] = entries.get(key)[2];
+        }
+    }
+
+    /**
+     * Copies the data into direct (off-heap) buffers.  The order of the rows is kept.
+     *
+     * @param data The data to store, typically as returned by `DataReader.readCSV`.
+     * @return A new store holding a copy of the data.
+     * @throws IllegalArgumentException if the data list is null, contains null, or is too large for a buffer.
+     */
+    public static OffHeapDataStore of(List<Data> data) {
+        return new OffHeapDataStore(validate(data), ByteBuffer.allocateDirect(storageBytes(data)));
+    }
+
+    /**
+     * Copies the data into a memory-mapped file, so the operating system can page the columns in
+     * and out as needed.  The file is created or overwritten, and remains on disk afterwards.
+     *
+     * @param data The data to store, typically as returned by `DataReader.readCSV`.
+     * @param file The file to map.
+     * @return A new store holding a copy of the data.
+     * @throws IOException If the file cannot be created or mapped.
+     * @throws IllegalArgumentException if the data list is null, contains null, or is too large for a buffer.
+     */
+    public static OffHeapDataStore mapped(List<Data> data, Path file) throws IOException {
+        validate(data);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // The mapping stays valid after the channel is closed
+            return new OffHeapDataStore(data, channel.map(FileChannel.MapMode.READ_WRITE, 0, storageBytes(data)));
+        }
+    }
+
+    @Override
+    public Data get(int index) {
+        checkIndex(index);
+        int key = keys.getInt(index * INT_BYTES);
+        return new Data(isoCodes[key], continents[key], locations[key],
+            dates.getInt(index * INT_BYTES),
+            newCases.getInt(index * INT_BYTES),
+            newDeaths.getInt(index * INT_BYTES),
+            vaccinated.getInt(index * INT_BYTES),
+            populations.getLong(index * LONG_BYTES));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index The row index.
+     * @return The location of the row.
+     */
+    public String getLocation(int index) {
+        checkIndex(index);
+        return locations[keys.getInt(index * INT_BYTES)];
+    }
+
+    /**
+     * @param index The row index.
+     * @return The continent of the row.
+     */
+    public String getContinent(int index) {
+        checkIndex(index);
+        return continents[keys.getInt(index * INT_BYTES)];
+    }
+
+    /**
+     * @param index The row index.
+     * @return The date of the row, as days since 1970-01-01.
+     */
+    public int getEpochDay(int index) {
+        checkIndex(index);
+        return dates.getInt(index * INT_BYTES);
+    }
+
+    /**
+     * @param index The row index.
+     * @return The new cases of the row.
+     */
+    public int getNewCases(int index) {
+        checkIndex(index);
+        return newCases.getInt(index * INT_BYTES);
+    }
+
+    /**
+     * @param index The row index.
+     * @return The new deaths of the row.
+     */
+    public int getNewDeaths(int index) {
+        checkIndex(index);
+        return newDeaths.getInt(index * INT_BYTES);
+    }
+
+    /**
+     * @param index The row index.
+     * @return The people vaccinated of the row.
+     */
+    public int getPeopleVaccinated(int index) {
+        checkIndex(index);
+        return vaccinated.getInt(index * INT_BYTES);
+    }
+
+    /**
+     * @param index The row index.
+     * @return The population of the row.
+     */
+    public long getPopulation(int index) {
+        checkIndex(index);
+        return populations.getLong(index * LONG_BYTES);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    private static List<Data> validate(List<Data> data) {
+        if (data == null || data.contains(null)) {
+            throw new IllegalArgumentException("Data list must not be null or contain null");
+        }
+        return data;
+    }
+
+    /**
+     * Returns the bytes needed to store all columns, checking that they fit in a single buffer.
+     */
+    private static int storageBytes(List<Data> data) {
+        long bytes = (long) data.size() * ROW_BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many rows for off-heap storage: " + data.size());
+        }
+        return (int) bytes;
+    }
+
+    /**
+     * Returns the region of the storage buffer holding one column.  The int columns come first,
+     * one after another, followed by the long column.
+     */
+    private ByteBuffer column(ByteBuffer storage, int column, int valueBytes) {
+        int offset = column * size * INT_BYTES;
+        return storage.duplicate()
+            .position(offset)
+            .limit(offset + size * valueBytes)
+            .slice()
+            .order(ByteOrder.nativeOrder());
+    }
+}
\ No newline at end of file
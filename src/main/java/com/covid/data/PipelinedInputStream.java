@@ -0,0 +1,143 @@
+package com.covid.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The `PipelinedInputStream` class reads a source stream on a background thread and hands the bytes
+ * over in chunks, so that slow work in the source (such as decompression) overlaps with the work
+ * done by the reader of this stream (such as CSV parsing).  A fixed set of chunk buffers is
+ * recycled between the two threads, and an error in the source is rethrown to the reader.
+ */
+final class PipelinedInputStream extends InputStream {
+
+    private static final Chunk END = new Chunk(0); // Marks the end of the source stream
+
+    private final BlockingQueue<Chunk> filled;  // Chunks read from the source, waiting to be consumed
+    private final BlockingQueue<Chunk> empty;   // Consumed chunks, waiting to be refilled
+    private final Thread producer;
+    private volatile IOException failure;        // Error raised while reading the source, if any
+    private volatile boolean closed;
+
+    private Chunk current;                       // Chunk being consumed
+    private int position;                        // Next unread byte in the current chunk
+
+    /**
+     * Constructs a `PipelinedInputStream` and starts reading the source.
+     *
+     * @param source    The stream to read in the background.  It is closed when reading ends.
+     * @param chunkSize The size of each chunk in bytes.
+     * @param chunks    The number of chunks shared between the two threads.
+     * @param name      The name of the background thread.
+     */
+    PipelinedInputStream(InputStream source, int chunkSize, int chunks, String name) {
+        this.filled = new ArrayBlockingQueue<>(chunks + 1); // Room for the end marker
+        this.empty = new ArrayBlockingQueue<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            empty.add(new Chunk(chunkSize));
+        }
+        this.producer = new Thread(() -> produce(source), name);
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return current.data[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int count = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        producer.interrupt();
+    }
+
+    /**
+     * Makes sure the current chunk has unread bytes, waiting for the next one if needed.
+     *
+     * @return False at the end of the stream.
+     * @throws IOException If the source failed, or the wait was interrupted.
+     */
+    private boolean ensureAvailable() throws IOException {
+        while (current == null || position == current.length) {
+            if (current == END) {
+                return false;
+            }
+            if (current != null) {
+                empty.offer(current); // Hand the consumed chunk back for reuse
+            }
+            try {
+                current = filled.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for input", e);
+            }
+            position = 0;
+            if (current == END && failure != null) {
+                throw new IOException("Error reading input: " + failure.getMessage(), failure);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the source into recycled chunks until it ends, fails, or this stream is closed.
+     */
+    private void produce(InputStream source) {
+        try (source) {
+            while (!closed) {
+                Chunk chunk = empty.take();
+                chunk.length = readFully(source, chunk.data);
+                if (chunk.length == 0) {
+                    break;
+                }
+                filled.put(chunk);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return; // Closed by the reader, nobody is waiting for the end marker
+        }
+        filled.offer(END);
+    }
+
+    private static int readFully(InputStream source, byte[] buffer) throws IOException {
+        int total = 0;
+        int read;
+        while (total < buffer.length && (read = source.read(buffer, total, buffer.length - total)) > 0) {
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * A reusable buffer and the number of valid bytes in it.
+     */
+    private static final class Chunk {
+        private final byte[] data;
+        private int length;
+
+        private Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.covid.data;
+
+import java.util.Arrays;
+
+/**
+ * The `ValidationReport` class collects the rows rejected while reading a CSV file.  It keeps a
+ * counter per error type and the line numbers of the first few offending rows of each type, so
+ * its memory use is fixed no matter how many rows are rejected.  An optional error budget makes
+ * `DataReader` abort the load once too many rows have been rejected.
+ */
+public class ValidationReport {
+
+    /**
+     * Represents the reasons a row can be rejected.
+     */
+    public enum ErrorType { FIELD_COUNT, INVALID_DATE, NEGATIVE_VALUE, MISSING_FIELD }
+
+    public static final int DEFAULT_SAMPLE_SIZE = 10;          // Line numbers kept per error type by default
+    public static final long UNLIMITED_BUDGET = Long.MAX_VALUE; // Error budget that never aborts the load
+
+    private final int sampleSize;     // Maximum number of line numbers kept per error type
+    private final long errorBudget;   // Maximum number of rejected rows before the load is aborted
+    private final long[] counts;      // Number of rejected rows per error type
+    private final int[][] samples;    // First line numbers rejected per error type
+    private long totalErrors;         // Number of rejected rows across all error types
+    private long acceptedRows;        // Number of rows read successfully
+
+    /**
+     * Constructs a `ValidationReport` with the default sample size and no error budget.
+     */
+    public ValidationReport() {
+        this(DEFAULT_SAMPLE_SIZE, UNLIMITED_BUDGET);
+    }
+
+    /**
+     * Constructs a `ValidationReport`.
+     *
+     * @param sampleSize  The maximum number of offending line numbers kept per error type.
+     * @param errorBudget The maximum number of rejected rows allowed before the load is aborted.
+     * @throws IllegalArgumentException if the sample size or error budget is negative.
+     */
+    public ValidationReport(int sampleSize, long errorBudget) {
+        if (sampleSize < 0 || errorBudget < 0) {
+            throw new IllegalArgumentException("Sample size and error budget must not be negative");
+        }
+        this.sampleSize = sampleSize;
+        this.errorBudget = errorBudget;
+        this.counts = new long[ErrorType.values().length];
+        this.samples = new int[ErrorType.values().length][sampleSize];
+    }
+
+    /**
+     * Records a rejected row.
+     *
+     * @param type       The reason the row was rejected.
+     * @param lineNumber The line number of the row in the file.
+     */
+    public void recordError(ErrorType type, int lineNumber) {
+        long count = counts[type.ordinal()]++;
+        if (count < sampleSize) {
+            samples[type.ordinal()][(int) count] = lineNumber;
+        }
+        totalErrors++;
+    }
+
+    /**
+     * Records a row read successfully.
+     */
+    public void recordAccepted() {
+        acceptedRows++;
+    }
+
+    /**
+     * @return True if more rows have been rejected than the error budget allows.
+     */
+    public boolean isBudgetExceeded() {
+        return totalErrors > errorBudget;
+    }
+
+    /**
+     * @return The maximum number of rejected rows allowed before the load is aborted.
+     */
+    public long getErrorBudget() { return errorBudget; }
+
+    /**
+     * @return The number of rejected rows across all error types.
+     */
+    public long getTotalErrors() { return totalErrors; }
+
+    /**
+     * @return The number of rows read successfully.
+     */
+    public long getAcceptedRows() { return acceptedRows; }
+
+    /**
+     * @param type The error type.
+     * @return The number of rows rejected for the given reason.
+     */
+    public long getCount(ErrorType type) { return counts[type.ordinal()]; }
+
+    /**
+     * @param type The error type.
+     * @return The line numbers of the first rows rejected for the given reason.
+     */
+    public int[] getSampleLines(ErrorType type) {
+        return Arrays.copyOf(samples[type.ordinal()], (int) Math.min(counts[type.ordinal()], sampleSize));
+    }
+
+    /**
+     * Returns a summary of the rejected rows, one line per error type that occurred.
+     *
+     * @return The summary text.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Rows accepted: %d, rows rejected: %d%n", acceptedRows, totalErrors));
+        for (ErrorType type : ErrorType.values()) {
+            long count = counts[type.ordinal()];
+            if (count > 0) {
+                sb.append(String.format("  %-15s %d (lines %s%s)%n", type, count,
+                    Arrays.toString(getSampleLines(type)), count > sampleSize ? " ..." : ""));
+            }
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
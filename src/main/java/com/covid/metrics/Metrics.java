@@ -0,0 +1,265 @@
+package com.covid.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * The `Metrics` class is a lightweight registry of counters and stage timers for the hot paths
+ * of the application (load, gap-fill, select, group, calculate and render).
+ *
+ * Metrics are disabled by default and enabled with the system property `-Dcovid.metrics=true`.
+ * When disabled, `begin` returns null and every other call returns after a single check of a
+ * constant flag, so the instrumentation can stay in place at no measurable cost.  When enabled,
+ * the registry is exposed through JMX and a summary is printed to the console on exit.
+ *
+ * Typical use:
+ * <pre>
+ *     Metrics.Sample sample = Metrics.begin(Metrics.Stage.LOAD);
+ *     try {
+ *         ...
+ *     } finally {
+ *         Metrics.end(sample);
+ *     }
+ * </pre>
+ */
+public final class Metrics {
+
+    /**
+     * The instrumented stages of the processing pipeline.
+     */
+    public enum Stage { LOAD, GAP_FILL, ANOMALY_SCAN, SELECT, GROUP, CALCULATE, RENDER }
+
+    /**
+     * The event counters of the processing pipeline.
+     */
+    public enum Counter { ROWS_READ, ROWS_SKIPPED, ROWS_REJECTED, ROWS_FILLED, ROWS_SELECTED, GROUPS_CREATED, RESULTS_REUSED, RESULTS_RENDERED }
+
+    private static final boolean ENABLED = Boolean.getBoolean("covid.metrics"); // Constant so the JIT can drop disabled paths
+
+    private static final Map<Counter, LongAdder> COUNTERS = new EnumMap<>(Counter.class);
+    private static final Map<Stage, StageStats> STAGES = new EnumMap<>(Stage.class);
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = allocationTracker();
+
+    static {
+        for (Counter counter : Counter.values()) {
+            COUNTERS.put(counter, new LongAdder());
+        }
+        for (Stage stage : Stage.values()) {
+            STAGES.put(stage, new StageStats());
+        }
+        if (ENABLED) {
+            register();
+        }
+    }
+
+    private Metrics() {
+        // Static registry, not instantiable
+    }
+
+    /**
+     * @return True if metrics collection is enabled.
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Marks the start of a stage on the current thread.
+     *
+     * @param stage The stage being started.
+     * @return A sample to pass to `end`, or null if metrics are disabled.
+     */
+    public static Sample begin(Stage stage) {
+        if (!ENABLED) {
+            return null;
+        }
+        return new Sample(stage, System.nanoTime(), allocatedBytes());
+    }
+
+    /**
+     * Marks the end of a stage started with `begin` and records its duration and allocations.
+     * Must be called on the same thread as `begin`.
+     *
+     * @param sample The sample returned by `begin`; null samples are ignored.
+     */
+    public static void end(Sample sample) {
+        if (sample == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - sample.startNanos;
+        long allocated = (sample.startAllocatedBytes < 0) ? -1 : allocatedBytes() - sample.startAllocatedBytes;
+        STAGES.get(sample.stage).record(elapsed, allocated);
+    }
+
+    /**
+     * Adds to a counter.
+     *
+     * @param counter The counter to update.
+     * @param amount  The amount to add.
+     */
+    public static void increment(Counter counter, long amount) {
+        if (ENABLED) {
+            COUNTERS.get(counter).add(amount);
+        }
+    }
+
+    /**
+     * Adds one to a counter.
+     *
+     * @param counter The counter to update.
+     */
+    public static void increment(Counter counter) {
+        increment(counter, 1);
+    }
+
+    /**
+     * Returns a human-readable summary of all counters and stages.
+     *
+     * @return The summary text.
+     */
+    public static String dump() {
+        StringBuilder sb = new StringBuilder("Metrics summary\n");
+        for (Map.Entry<Counter, LongAdder> entry : COUNTERS.entrySet()) {
+            sb.append(String.format("  %-18s %,d%n", entry.getKey(), entry.getValue().sum()));
+        }
+        sb.append(String.format("  %-18s %8s %12s %12s %14s%n", "stage", "count", "total ms", "max ms", "allocated"));
+        for (Map.Entry<Stage, StageStats> entry : STAGES.entrySet()) {
+            StageStats stats = entry.getValue();
+            sb.append(String.format("  %-18s %8d %12.3f %12.3f %14s%n",
+                entry.getKey(),
+                stats.count.sum(),
+                stats.totalNanos.sum() / 1_000_000.0,
+                stats.maxNanos.get() / 1_000_000.0,
+                (THREAD_MX_BEAN == null) ? "n/a" : String.format("%,d B", stats.allocatedBytes.sum())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Resets all counters and stage statistics to zero.
+     */
+    public static void reset() {
+        COUNTERS.values().forEach(LongAdder::reset);
+        STAGES.values().forEach(StageStats::reset);
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if not supported.
+     */
+    private static long allocatedBytes() {
+        return (THREAD_MX_BEAN == null) ? -1 : THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns the HotSpot thread bean if it can measure per-thread allocations, or null otherwise.
+     */
+    private static com.sun.management.ThreadMXBean allocationTracker() {
+        if (!ENABLED || !(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        bean.setThreadAllocatedMemoryEnabled(true);
+        return bean;
+    }
+
+    /**
+     * Registers the JMX bean and the shutdown hook that prints the summary on exit.
+     */
+    private static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName("com.covid:type=Metrics"));
+        } catch (JMException e) {
+            System.err.println("Unable to register metrics with JMX: " + e.getMessage());
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(dump()), "metrics-dump"));
+    }
+
+    private static Map<String, Long> stageValues(ToLongFunction<StageStats> getter) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        STAGES.forEach((stage, stats) -> values.put(stage.name(), getter.applyAsLong(stats)));
+        return values;
+    }
+
+    /**
+     * An in-flight stage measurement returned by `begin`.
+     */
+    public static final class Sample {
+        private final Stage stage;              // The stage being measured
+        private final long startNanos;          // Time at which the stage started
+        private final long startAllocatedBytes; // Thread allocations when the stage started, or -1
+
+        private Sample(Stage stage, long startNanos, long startAllocatedBytes) {
+            this.stage = stage;
+            this.startNanos = startNanos;
+            this.startAllocatedBytes = startAllocatedBytes;
+        }
+    }
+
+    /**
+     * Accumulated statistics of a single stage.
+     */
+    private static final class StageStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        private void record(long elapsedNanos, long allocated) {
+            count.increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+            if (allocated > 0) {
+                allocatedBytes.add(allocated);
+            }
+        }
+
+        private void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+            allocatedBytes.reset();
+        }
+    }
+
+    /**
+     * The JMX view of the registry.
+     */
+    private static final class Bean implements MetricsMXBean {
+        @Override
+        public Map<String, Long> getCounters() {
+            Map<String, Long> values = new LinkedHashMap<>();
+            COUNTERS.forEach((counter, adder) -> values.put(counter.name(), adder.sum()));
+            return values;
+        }
+
+        @Override
+        public Map<String, Long> getStageCounts() { return stageValues(stats -> stats.count.sum()); }
+
+        @Override
+        public Map<String, Long> getStageTotalNanos() { return stageValues(stats -> stats.totalNanos.sum()); }
+
+        @Override
+        public Map<String, Long> getStageMaxNanos() { return stageValues(stats -> stats.maxNanos.get()); }
+
+        @Override
+        public Map<String, Long> getStageAllocatedBytes() {
+            return stageValues(stats -> (THREAD_MX_BEAN == null) ? -1 : stats.allocatedBytes.sum());
+        }
+
+        @Override
+        public String dump() { return Metrics.dump(); }
+
+        @Override
+        public void reset() { Metrics.reset(); }
+    }
+}
\ No newline at end of file
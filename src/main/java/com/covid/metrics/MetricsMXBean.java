@@ -0,0 +1,45 @@
+package com.covid.metrics;
+
+import java.util.Map;
+
+/**
+ * The `MetricsMXBean` interface exposes the application metrics through JMX.  It is registered
+ * under the name `com.covid:type=Metrics` when metrics are enabled.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * @return The current value of every counter, keyed by counter name.
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * @return The number of times each stage has run, keyed by stage name.
+     */
+    Map<String, Long> getStageCounts();
+
+    /**
+     * @return The total time spent in each stage in nanoseconds, keyed by stage name.
+     */
+    Map<String, Long> getStageTotalNanos();
+
+    /**
+     * @return The longest single run of each stage in nanoseconds, keyed by stage name.
+     */
+    Map<String, Long> getStageMaxNanos();
+
+    /**
+     * @return The estimated bytes allocated by each stage, keyed by stage name (-1 if not supported by the JVM).
+     */
+    Map<String, Long> getStageAllocatedBytes();
+
+    /**
+     * @return A human-readable summary of all metrics.
+     */
+    String dump();
+
+    /**
+     * Resets all counters and stage statistics to zero.
+     */
+    void reset();
+}
\ No newline at end of file
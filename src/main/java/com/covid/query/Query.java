@@ -0,0 +1,180 @@
+package com.covid.query;
+
+import com.covid.data.Data;
+import com.covid.data.Dataset;
+import com.covid.metrics.Metrics;
+import com.covid.summary.GroupingStrategy;
+import com.covid.summary.RollupCube;
+import com.covid.summary.Summary;
+import com.covid.summary.SummarySpec;
+import com.covid.util.DateRange;
+
+import java.util.List;
+
+/**
+ * The `Query` class represents one pass through the select, summarize and display flow over a
+ * shared, read-only `Dataset`.  A query is immutable: choosing a selection or summary options
+ * returns a new query and leaves the original untouched.  Since neither the query nor the dataset
+ * ever changes, any number of queries can run on different threads at the same time without
+ * copying the data or taking a lock.  The rows of the selection are selected once, on first use,
+ * and shared with the copies that keep the same selection.
+ *
+ * Typical use:
+ * <pre>
+ *     List&lt;Summary.SummaryResult&gt; results = Query.over(dataset, rollup)
+ *         .withSelection("Asia", dateRange)
+ *         .withSummary(new Summary.ByPeriod(Summary.Period.MONTH), Summary.Metric.DEATHS, Summary.ResultType.NEW_TOTAL)
+ *         .results();
+ * </pre>
+ */
+public final class Query {
+    private final Dataset dataset;                   // Shared read-only data to select from
+    private final RollupCube rollup;                 // Precomputed rollup cube, or null
+    private final String area;                       // Selected location or continent, or null
+    private final DateRange dateRange;               // Selected date range, or null
+    private final GroupingStrategy groupingStrategy; // Chosen grouping strategy, or null
+    private final Summary.Metric metric;             // Chosen metric, or null
+    private final Summary.ResultType resultType;     // Chosen result type, or null
+    private volatile List<Data> selected;            // Rows of the selection once selected, or null
+
+    private Query(Dataset dataset, RollupCube rollup, String area, DateRange dateRange,
+                  GroupingStrategy groupingStrategy, Summary.Metric metric, Summary.ResultType resultType,
+                  List<Data> selected) {
+        this.dataset = dataset;
+        this.rollup = rollup;
+        this.area = area;
+        this.dateRange = dateRange;
+        this.groupingStrategy = groupingStrategy;
+        this.metric = metric;
+        this.resultType = resultType;
+        this.selected = selected;
+    }
+
+    /**
+     * Creates an empty query over a dataset.
+     *
+     * @param dataset The shared dataset to select from.
+     * @param rollup  The rollup cube built from the dataset, or null to always summarize the raw data.
+     * @return A query with no selection and no summary options.
+     * @throws IllegalArgumentException if the dataset is null.
+     */
+    public static Query over(Dataset dataset, RollupCube rollup) {
+        if (dataset == null) {
+            throw new IllegalArgumentException("Dataset must not be null");
+        }
+        return new Query(dataset, rollup, null, null, null, null, null, null);
+    }
+
+    /**
+     * Returns a copy of this query selecting the given area and date range.  Summary options
+     * chosen earlier are kept.  An ISO code or a name in another case is replaced by the area name
+     * as written in the data, so the same area is always selected under the same name.
+     *
+     * @param area      The location or continent name, or a location's ISO code (case-insensitive).
+     * @param dateRange The date range to select.
+     * @return The new query.
+     * @throws IllegalArgumentException if the area or date range is null.
+     */
+    public Query withSelection(String area, DateRange dateRange) {
+        if (area == null || dateRange == null) {
+            throw new IllegalArgumentException("Area and date range must not be null");
+        }
+        String resolved = dataset.resolveArea(area);
+        return new Query(dataset, rollup, resolved != null ? resolved : area, dateRange, groupingStrategy, metric, resultType, null);
+    }
+
+    /**
+     * Returns a copy of this query with the given summary options.
+     *
+     * @param groupingStrategy The strategy to group the selected data.
+     * @param metric           The metric to calculate the summary for.
+     * @param resultType       The type of result to calculate.
+     * @return The new query.
+     * @throws IllegalArgumentException if any of the input parameters are null.
+     */
+    public Query withSummary(GroupingStrategy groupingStrategy, Summary.Metric metric, Summary.ResultType resultType) {
+        if (groupingStrategy == null || metric == null || resultType == null) {
+            throw new IllegalArgumentException("Grouping strategy, metric, and result type must not be null");
+        }
+        return new Query(dataset, rollup, area, dateRange, groupingStrategy, metric, resultType, selected);
+    }
+
+    /**
+     * @return True if an area and date range have been selected.
+     */
+    public boolean hasSelection() {
+        return area != null;
+    }
+
+    /**
+     * @return True if summary options have been chosen.
+     */
+    public boolean hasSummary() {
+        return groupingStrategy != null;
+    }
+
+    /**
+     * Selects the rows of the chosen area and date range.  The rows are selected on the first call
+     * and returned again by later calls, on this query and on copies with the same selection.
+     *
+     * @return The selected rows, read-only.
+     * @throws IllegalStateException if no selection has been made.
+     */
+    public List<Data> select() {
+        if (!hasSelection()) {
+            throw new IllegalStateException("No area and date range selected");
+        }
+        List<Data> rows = selected;
+        if (rows != null) {
+            return rows;
+        }
+        Metrics.Sample sample = Metrics.begin(Metrics.Stage.SELECT);
+        try {
+            rows = dataset.select(area, dateRange); // Two threads may both select, with the same result
+            Metrics.increment(Metrics.Counter.ROWS_SELECTED, rows.size());
+            selected = rows;
+            return rows;
+        } finally {
+            Metrics.end(sample);
+        }
+    }
+
+    /**
+     * Selects the data and builds the summary with the chosen options.
+     *
+     * @return The summary of the selected data.
+     * @throws IllegalStateException if no selection has been made or no summary options have been chosen.
+     * @throws IllegalArgumentException if the selection contains no data.
+     */
+    public Summary summarize() {
+        if (!hasSummary()) {
+            throw new IllegalStateException("No summary options chosen");
+        }
+        return new Summary(select(), groupingStrategy, metric, resultType, rollup, area, dateRange);
+    }
+
+    /**
+     * Runs the whole query and returns the summary results, ready to be displayed.
+     *
+     * @return The list of `SummaryResult` objects.
+     * @throws IllegalStateException if no selection has been made or no summary options have been chosen.
+     * @throws IllegalArgumentException if the selection contains no data.
+     */
+    public List<Summary.SummaryResult> results() {
+        return summarize().calculate();
+    }
+
+    /**
+     * @return The spec describing this query, for batch execution with `SummaryExecutor`.
+     * @throws IllegalStateException if no selection has been made or no summary options have been chosen.
+     */
+    public SummarySpec toSpec() {
+        if (!hasSelection() || !hasSummary()) {
+            throw new IllegalStateException("Query is incomplete");
+        }
+        return new SummarySpec(area, dateRange, groupingStrategy, metric, resultType);
+    }
+
+    public String getArea() { return area; }
+    public DateRange getDateRange() { return dateRange; }
+}
\ No newline at end of file
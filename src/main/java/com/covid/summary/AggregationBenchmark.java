@@ -0,0 +1,128 @@
+package com.covid.summary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+/**
+ * The `AggregationBenchmark` class measures the aggregation kernels on columns larger than the CPU
+ * caches, with the scalar kernels and, when they can be loaded, the vector kernels, and checks that
+ * both give the same results.  Run it with and without the vector module to compare:
+ * <pre>
+ *     java --add-modules jdk.incubator.vector -cp &lt;classes&gt; com.covid.summary.AggregationBenchmark [values] [rounds]
+ * </pre>
+ * Each kernel is run for a number of warm-up rounds, then timed over the same number of rounds; the
+ * best round is reported, with the memory bandwidth it reached.
+ */
+public final class AggregationBenchmark {
+
+    private static final int DEFAULT_VALUES = 8 << 20; // 32 MB of ints, more than the caches hold
+    private static final int DEFAULT_ROUNDS = 20;
+
+    private static volatile long sink; // Keeps the results alive, so the JIT cannot drop the loops
+
+    private AggregationBenchmark() {
+        // Entry point only, not instantiable
+    }
+
+    /**
+     * Runs the benchmark and prints a table of the best time per kernel and implementation.
+     *
+     * @param args Optional number of values per column and number of rounds.
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_VALUES;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+
+        Random random = new Random(42);
+        int[] ints = new int[size];
+        long[] longs = new long[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = random.nextInt(1_000_000);
+            longs[i] = ints[i] * 1_000_000L + i;
+        }
+        int[] intDifferences = new int[size];
+        long[] longDifferences = new long[size];
+
+        List<ColumnKernels> implementations = new ArrayList<>();
+        implementations.add(new ScalarKernels());
+        ColumnKernels vector = AggregationKernels.vectorKernels();
+        if (vector != null) {
+            implementations.add(vector);
+        } else {
+            System.out.println("Vector kernels unavailable: start with --add-modules jdk.incubator.vector");
+        }
+        System.out.println("Selected at startup: " + AggregationKernels.implementation());
+        System.out.printf("%,d values, best of %d rounds%n", size, rounds);
+
+        List<Case> cases = List.of(
+            new Case("sum int", 4L * size, k -> k.sum(ints, 0, size)),
+            new Case("sum long", 8L * size, k -> k.sum(longs, 0, size)),
+            new Case("max int", 4L * size, k -> k.max(ints, 0, size)),
+            new Case("max long", 8L * size, k -> k.max(longs, 0, size)),
+            new Case("diff int", 8L * size, k -> {
+                k.adjacentDifference(ints, 0, size, 0, intDifferences);
+                return Arrays.hashCode(intDifferences);
+            }, k -> {
+                k.adjacentDifference(ints, 0, size, 0, intDifferences);
+                return intDifferences[size - 1];
+            }),
+            new Case("diff long", 16L * size, k -> {
+                k.adjacentDifference(longs, 0, size, 0, longDifferences);
+                return Arrays.hashCode(longDifferences);
+            }, k -> {
+                k.adjacentDifference(longs, 0, size, 0, longDifferences);
+                return longDifferences[size - 1];
+            }));
+
+        System.out.printf("  %-10s %-18s %10s %10s %9s%n", "kernel", "implementation", "best ms", "GB/s", "speed-up");
+        for (Case benchmark : cases) {
+            long expected = benchmark.checksum.applyAsLong(implementations.get(0));
+            double baseline = 0;
+            for (ColumnKernels kernels : implementations) {
+                double best = benchmark.bestNanos(kernels, rounds);
+                baseline = (baseline == 0) ? best : baseline;
+                boolean same = benchmark.checksum.applyAsLong(kernels) == expected;
+                System.out.printf("  %-10s %-18s %10.3f %10.2f %8.2fx%s%n", benchmark.name, kernels.describe(),
+                    best / 1_000_000.0, benchmark.bytes / best, baseline / best, same ? "" : "  MISMATCH");
+            }
+        }
+    }
+
+    /**
+     * One kernel over the benchmark columns: the bytes it reads and writes, the timed call and a
+     * checksum of its result, compared between implementations.
+     */
+    private static final class Case {
+        private final String name;
+        private final long bytes;
+        private final ToLongFunction<ColumnKernels> checksum;
+        private final ToLongFunction<ColumnKernels> run;
+
+        private Case(String name, long bytes, ToLongFunction<ColumnKernels> run) {
+            this(name, bytes, run, run);
+        }
+
+        private Case(String name, long bytes, ToLongFunction<ColumnKernels> checksum, ToLongFunction<ColumnKernels> run) {
+            this.name = name;
+            this.bytes = bytes;
+            this.checksum = checksum;
+            this.run = run;
+        }
+
+        private double bestNanos(ColumnKernels kernels, int rounds) {
+            for (int i = 0; i < rounds; i++) {
+                sink += run.applyAsLong(kernels); // Warm-up, lets the JIT compile the loop
+            }
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < rounds; i++) {
+                long start = System.nanoTime();
+                sink += run.applyAsLong(kernels);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            return best;
+        }
+    }
+}
\ No newline at end of file
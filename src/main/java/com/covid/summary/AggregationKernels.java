@@ -0,0 +1,158 @@
+package com.covid.summary;
+
+/**
+ * The `AggregationKernels` class holds the tight loops used to aggregate columns of daily values:
+ * sums, maximums and adjacent differences over a range of an `int` or `long` array.
+ *
+ * The loops are run by one of two implementations, chosen once at startup.  `VectorKernels` uses
+ * the incubating Vector API; it is picked when the `jdk.incubator.vector` module was added to the
+ * JVM (`--add-modules jdk.incubator.vector`) and the class was compiled in.  Otherwise, or with
+ * `-Dcovid.kernels=scalar`, `ScalarKernels` runs plain Java loops that the JIT compiler
+ * vectorizes where it can.  Both give the same results.  `AggregationBenchmark` compares them.
+ */
+public final class AggregationKernels {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNELS = "com.covid.summary.VectorKernels"; // Compiled separately, loaded by name
+
+    private static final ColumnKernels KERNELS = select(); // Implementation chosen at startup
+
+    private AggregationKernels() {
+        // Static utility class, not instantiable
+    }
+
+    /**
+     * Sums a range of values.
+     *
+     * @param values The values.
+     * @param from   The first index to sum (inclusive).
+     * @param to     The last index to sum (exclusive).
+     * @return The sum, without overflow.
+     * @throws IndexOutOfBoundsException if the range is outside the array.
+     */
+    public static long sum(int[] values, int from, int to) {
+        checkRange(values.length, from, to);
+        return KERNELS.sum(values, from, to);
+    }
+
+    /**
+     * Sums a range of values.
+     *
+     * @param values The values.
+     * @param from   The first index to sum (inclusive).
+     * @param to     The last index to sum (exclusive).
+     * @return The sum, wrapping around on overflow.
+     * @throws IndexOutOfBoundsException if the range is outside the array.
+     */
+    public static long sum(long[] values, int from, int to) {
+        checkRange(values.length, from, to);
+        return KERNELS.sum(values, from, to);
+    }
+
+    /**
+     * Finds the largest value in a range.
+     *
+     * @param values The values.
+     * @param from   The first index to examine (inclusive).
+     * @param to     The last index to examine (exclusive).
+     * @return The largest value, or `Integer.MIN_VALUE` if the range is empty.
+     * @throws IndexOutOfBoundsException if the range is outside the array.
+     */
+    public static int max(int[] values, int from, int to) {
+        checkRange(values.length, from, to);
+        return KERNELS.max(values, from, to);
+    }
+
+    /**
+     * Finds the largest value in a range.
+     *
+     * @param values The values.
+     * @param from   The first index to examine (inclusive).
+     * @param to     The last index to examine (exclusive).
+     * @return The largest value, or `Long.MIN_VALUE` if the range is empty.
+     * @throws IndexOutOfBoundsException if the range is outside the array.
+     */
+    public static long max(long[] values, int from, int to) {
+        checkRange(values.length, from, to);
+        return KERNELS.max(values, from, to);
+    }
+
+    /**
+     * Computes the differences between consecutive values of a range, e.g. the daily change of a
+     * cumulative column.  `out[k]` receives `values[from + k] - values[from + k - 1]`, with
+     * `previous` standing in for the value before the first one.
+     *
+     * @param values   The values.
+     * @param from     The first index (inclusive).
+     * @param to       The last index (exclusive).
+     * @param previous The value preceding `values[from]`.
+     * @param out      The array receiving the `to - from` differences, starting at index 0.
+     * @throws IndexOutOfBoundsException if the range is outside the array, or `out` is too short.
+     */
+    public static void adjacentDifference(int[] values, int from, int to, int previous, int[] out) {
+        checkRange(values.length, from, to);
+        checkOutput(out.length, from, to);
+        KERNELS.adjacentDifference(values, from, to, previous, out);
+    }
+
+    /**
+     * Computes the differences between consecutive values of a range, as for `int` values.
+     *
+     * @param values   The values.
+     * @param from     The first index (inclusive).
+     * @param to       The last index (exclusive).
+     * @param previous The value preceding `values[from]`.
+     * @param out      The array receiving the `to - from` differences, starting at index 0.
+     * @throws IndexOutOfBoundsException if the range is outside the array, or `out` is too short.
+     */
+    public static void adjacentDifference(long[] values, int from, int to, long previous, long[] out) {
+        checkRange(values.length, from, to);
+        checkOutput(out.length, from, to);
+        KERNELS.adjacentDifference(values, from, to, previous, out);
+    }
+
+    /**
+     * @return A description of the implementation in use, e.g. "vector (256-bit)" or "scalar".
+     */
+    public static String implementation() {
+        return KERNELS.describe();
+    }
+
+    /**
+     * Chooses the implementation: the vector kernels if they can be loaded and are not disabled,
+     * the scalar kernels otherwise.
+     */
+    private static ColumnKernels select() {
+        ColumnKernels vector = "scalar".equals(System.getProperty("covid.kernels")) ? null : vectorKernels();
+        return vector != null ? vector : new ScalarKernels();
+    }
+
+    /**
+     * Loads the vector kernels.
+     *
+     * @return The vector kernels, or null if the module is not in the JVM, the class was not compiled
+     *         in, or the CPU's vector shapes are not supported.
+     */
+    static ColumnKernels vectorKernels() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null; // Loading the class would fail to link
+        }
+        try {
+            return (ColumnKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static void checkRange(int length, int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + length);
+        }
+    }
+
+    private static void checkOutput(int length, int from, int to) {
+        if (to - from > length) {
+            throw new IndexOutOfBoundsException("Output array too short: " + length + " < " + (to - from));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.covid.summary;
+
+/**
+ * The `ColumnKernels` interface is implemented by each way of running the aggregation kernels, so
+ * `AggregationKernels` can pick one at startup.  Implementations may assume the ranges have
+ * already been checked.
+ */
+interface ColumnKernels {
+
+    long sum(int[] values, int from, int to);
+
+    long sum(long[] values, int from, int to);
+
+    int max(int[] values, int from, int to);
+
+    long max(long[] values, int from, int to);
+
+    void adjacentDifference(int[] values, int from, int to, int previous, int[] out);
+
+    void adjacentDifference(long[] values, int from, int to, long previous, long[] out);
+
+    /**
+     * @return A short description of the implementation, e.g. "scalar".
+     */
+    String describe();
+}
\ No newline at end of file
@@ -18,4 +18,14 @@ public interface GroupingStrategy {
      * @return A list of lists, where each inner list represents a group of `Data` objects.
      */
     List<List<Data>> group(List<Data> data);
+
+    /**
+     * Describes the strategy and its parameters in a form that is the same in every run, so that
+     * summaries grouped with it can be stored and found again (see `ResultStore`).
+     *
+     * @return The description, or null if the strategy cannot be described and its summaries must not be stored.
+     */
+    default String describe() {
+        return null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package com.covid.summary;
+
+import com.covid.data.Data;
+
+import java.util.List;
+
+/**
+ * The `PrefixSums` class holds the running totals of one location's date-sorted series, so that the
+ * total of a metric over any run of rows is one subtraction.  The rows of a date range are found by
+ * arithmetic when the dates are consecutive, as they are after `DataReader` fills the gaps, and by
+ * binary search otherwise.  Built once per location, it answers every date range of every spec for
+ * that location.
+ */
+final class PrefixSums {
+    private final int size;            // Number of rows
+    private final int[] dates;         // Epoch day of each row, increasing
+    private final long[] cases;        // cases[i] = new cases of rows 0 to i - 1
+    private final long[] deaths;       // deaths[i] = new deaths of rows 0 to i - 1
+    private final int[] vaccinated;    // People vaccinated of each row (already cumulative)
+    private final boolean consecutive; // Whether the dates are consecutive days
+
+    /**
+     * Constructs the prefix sums of a location's series.
+     *
+     * @param series The rows of one location, sorted by date.
+     */
+    PrefixSums(List<Data> series) {
+        this.size = series.size();
+        this.dates = new int[size];
+        this.cases = new long[size + 1];
+        this.deaths = new long[size + 1];
+        this.vaccinated = new int[size];
+        for (int i = 0; i < size; i++) {
+            Data row = series.get(i);
+            dates[i] = row.getEpochDay();
+            cases[i + 1] = cases[i] + row.getNewCases();
+            deaths[i + 1] = deaths[i] + row.getNewDeaths();
+            vaccinated[i] = row.getPeopleVaccinated();
+        }
+        this.consecutive = size == 0 || dates[size - 1] - dates[0] == size - 1;
+    }
+
+    /**
+     * @return The number of rows.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param index The row index.
+     * @return The date of the row, as an epoch day.
+     */
+    int dateAt(int index) {
+        return dates[index];
+    }
+
+    /**
+     * Returns the index of the first row on or after a date.
+     *
+     * @param epochDay The date, as an epoch day.
+     * @return The index, `size()` if every row is before the date.
+     */
+    int lowerBound(int epochDay) {
+        if (consecutive) {
+            long offset = (long) epochDay - (size == 0 ? 0 : dates[0]);
+            return (int) Math.max(0, Math.min(size, offset));
+        }
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dates[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the total of a metric over a run of rows, as `Summary` counts it for a location: the
+     * sum of the daily values, or for the cumulative people vaccinated, the value of the last row.
+     *
+     * @param metric The metric.
+     * @param from   The first row (inclusive).
+     * @param to     The last row (exclusive), greater than `from`.
+     * @return The total.
+     * @throws IllegalStateException if an unexpected metric is encountered.
+     */
+    long total(Summary.Metric metric, int from, int to) {
+        switch (metric) {
+            case POSITIVE_CASES:
+                return cases[to] - cases[from];
+            case DEATHS:
+                return deaths[to] - deaths[from];
+            case PEOPLE_VACCINATED:
+                return vaccinated[to - 1];
+            default:
+                throw new IllegalStateException("Unexpected metric: " + metric);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,383 @@
+package com.covid.summary;
+
+import com.covid.data.Data;
+import com.covid.util.DateRange;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The `ResultStore` class keeps computed summary results on disk, so that they can be reused after
+ * the program restarts.  Results are stored under the summary spec together with a fingerprint of
+ * the rows the summary was computed from: when the data of an area changes, its fingerprint changes
+ * and its summaries are computed again, while the summaries of unchanged areas are read back.
+ *
+ * The store is a directory with two append-only files:
+ * <ul>
+ *     <li>`results.dat` holds the records: spec key, fingerprint and results;</li>
+ *     <li>`results.idx` maps each spec key to the position of its latest record.</li>
+ * </ul>
+ * Every record and index entry is framed with its length and a CRC-32 checksum.  A torn entry at the
+ * end of the index, left by a crash, is cut off when the store is opened, and a record that fails
+ * its checksum is treated as missing, so the store never returns damaged results.  Superseded
+ * records stay in the data file until `compact` is called.
+ *
+ * A spec is stored under the area it resolves to, so "VNM" and "Vietnam" share their results.  Its
+ * fingerprint covers every row it selects: a continent spec is computed again when any of its
+ * locations changes, while the specs of unchanged locations are still read back.  Results are not
+ * stored per location within a continent, since checking a fingerprint reads the same rows as
+ * computing the summary from prefix sums would.
+ *
+ * Reads and writes may come from several threads; they are serialized, which is cheap next to
+ * computing a summary.  Only one process may open a directory at a time: the store holds an
+ * exclusive lock on a `results.lock` file until it is closed.  The lock is not taken on the index,
+ * which `compact` replaces.
+ */
+public class ResultStore implements Closeable {
+
+    private static final String DATA_FILE = "results.dat";
+    private static final String INDEX_FILE = "results.idx";
+    private static final String LOCK_FILE = "results.lock";
+    private static final String KEY_VERSION = "v1";     // Prefix of spec keys, changed when the record format changes
+    private static final int FRAME_HEADER_BYTES = 8;     // Payload length and CRC-32 before each entry
+
+    private final Path directory;                      // Directory holding the store files
+    private final Map<String, IndexEntry> index;       // Spec key -> latest record
+    private final FileChannel lockFile;                // Holds the lock keeping other processes out
+    private FileChannel data;                          // Append-only records
+    private FileChannel indexFile;                     // Append-only index entries
+
+    /**
+     * Opens the store in a directory, creating the directory and files if they do not exist.
+     *
+     * @param directory The directory holding the store.
+     * @throws IOException If the directory or files cannot be created or read, or another process
+     *                     (or another store in this process) has the directory open.
+     * @throws IllegalArgumentException if the directory is null.
+     */
+    public ResultStore(Path directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory must not be null");
+        }
+        this.directory = directory;
+        this.index = new HashMap<>();
+        Files.createDirectories(directory);
+        this.lockFile = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = lockFile.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null; // Held by another store in this JVM
+            }
+            if (lock == null) {
+                throw new IOException("Result store " + directory + " is in use by another process");
+            }
+            open();
+        } catch (IOException | RuntimeException e) {
+            lockFile.close(); // Releases the lock
+            throw e;
+        }
+    }
+
+    /**
+     * Builds the key a spec is stored under.  The area is the one the spec resolves to, so specs
+     * naming it differently (e.g. by ISO code) share their results; names are matched ignoring case.
+     *
+     * @param spec The summary spec.
+     * @param area The area the spec's area resolves to, as returned by `Dataset.resolveArea`, or the
+     *             spec's area if it does not resolve.
+     * @return The key, or null if the spec's grouping strategy has no stable description.
+     */
+    public static String keyOf(SummarySpec spec, String area) {
+        String grouping = spec.getGroupingStrategy().describe();
+        if (grouping == null) {
+            return null;
+        }
+        DateRange range = spec.getDateRange();
+        return KEY_VERSION + "|" + area.toLowerCase(Locale.ROOT) + "|" + range.getStartEpochDay() + "|"
+            + range.getEndEpochDay() + "|" + grouping + "|" + spec.getMetric() + "|" + spec.getResultType();
+    }
+
+    /**
+     * Computes a fingerprint of the rows a summary is computed from.  It only depends on the values
+     * of the rows and their order, so it is the same in every run for the same data.
+     *
+     * @param rows The selected rows.
+     * @return The fingerprint.
+     */
+    public static long fingerprint(List<Data> rows) {
+        long hash = rows.size();
+        for (Data row : rows) {
+            hash = mix(hash, row.getLocation().hashCode());
+            hash = mix(hash, row.getContinent().hashCode());
+            hash = mix(hash, row.getIsoCode().hashCode());
+            hash = mix(hash, row.getEpochDay());
+            hash = mix(hash, row.getNewCases());
+            hash = mix(hash, row.getNewDeaths());
+            hash = mix(hash, row.getPeopleVaccinated());
+            hash = mix(hash, row.getPopulation());
+        }
+        return hash;
+    }
+
+    /**
+     * Looks up the stored results of a spec.
+     *
+     * @param key         The spec key, as returned by `keyOf`.
+     * @param fingerprint The fingerprint of the rows the results must have been computed from.
+     * @return The stored results, or null if there are none for this fingerprint.
+     * @throws UncheckedIOException if the data file cannot be read.
+     */
+    public synchronized List<Summary.SummaryResult> get(String key, long fingerprint) {
+        IndexEntry entry = index.get(key);
+        if (entry == null || entry.fingerprint != fingerprint) {
+            return null;
+        }
+        try {
+            ByteBuffer payload = readFrame(data, entry.offset);
+            if (payload == null) {
+                return null; // Damaged record, compute it again
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                payload.array(), payload.arrayOffset(), payload.remaining()));
+            if (!in.readUTF().equals(key) || in.readLong() != fingerprint) {
+                return null;
+            }
+            int count = in.readInt();
+            List<Summary.SummaryResult> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                DateRange range = DateRange.ofEpochDays(in.readInt(), in.readInt());
+                results.add(new Summary.SummaryResult(range, in.readInt()));
+            }
+            return Collections.unmodifiableList(results);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read result store " + directory, e);
+        }
+    }
+
+    /**
+     * Stores the results of a spec, replacing any results stored earlier under the same key.
+     *
+     * @param key         The spec key, as returned by `keyOf`.
+     * @param fingerprint The fingerprint of the rows the results were computed from.
+     * @param results     The results to store.
+     * @throws UncheckedIOException if the files cannot be written.
+     */
+    public synchronized void put(String key, long fingerprint, List<Summary.SummaryResult> results) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 12 * results.size());
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(key);
+            out.writeLong(fingerprint);
+            out.writeInt(results.size());
+            for (Summary.SummaryResult result : results) {
+                out.writeInt(result.getDateRange().getStartEpochDay());
+                out.writeInt(result.getDateRange().getEndEpochDay());
+                out.writeInt(result.getValue());
+            }
+            long offset = data.size();
+            writeFrame(data, offset, bytes.toByteArray());
+
+            bytes.reset();
+            out.writeUTF(key);
+            out.writeLong(fingerprint);
+            out.writeLong(offset);
+            writeFrame(indexFile, indexFile.size(), bytes.toByteArray()); // Written last, so it never points to a missing record
+            index.put(key, new IndexEntry(fingerprint, offset));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write result store " + directory, e);
+        }
+    }
+
+    /**
+     * @return The number of specs with stored results.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Rewrites the store with only the latest record of each spec, reclaiming the space of
+     * superseded records.
+     *
+     * @throws IOException If the files cannot be rewritten.
+     */
+    public synchronized void compact() throws IOException {
+        Path compactData = directory.resolve(DATA_FILE + ".tmp");
+        Path compactIndex = directory.resolve(INDEX_FILE + ".tmp");
+        try (FileChannel newData = FileChannel.open(compactData, StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             FileChannel newIndex = FileChannel.open(compactIndex, StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+                ByteBuffer payload = readFrame(data, entry.getValue().offset);
+                if (payload == null) {
+                    continue; // Damaged record, drop it
+                }
+                long offset = newData.size();
+                writeFrame(newData, offset, payload.array());
+
+                bytes.reset();
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().fingerprint);
+                out.writeLong(offset);
+                writeFrame(newIndex, newIndex.size(), bytes.toByteArray());
+            }
+            newData.force(true);
+            newIndex.force(true);
+        }
+        closeChannels();
+        Files.move(compactData, directory.resolve(DATA_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(compactIndex, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index.clear();
+        open();
+    }
+
+    /**
+     * Flushes the files to disk and closes them.
+     *
+     * @throws IOException If the files cannot be flushed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            data.force(true);
+            indexFile.force(true);
+        } finally {
+            try {
+                closeChannels();
+            } finally {
+                lockFile.close(); // Releases the lock
+            }
+        }
+    }
+
+    /**
+     * Opens the files and reads the index.  The index is read up to its first torn or damaged entry,
+     * and cut off there so that later entries are appended after valid ones.
+     */
+    private void open() throws IOException {
+        data = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        indexFile = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long dataSize = data.size();
+        long position = 0;
+        ByteBuffer payload;
+        while ((payload = readFrame(indexFile, position)) != null) {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                payload.array(), payload.arrayOffset(), payload.remaining()));
+            String key = in.readUTF();
+            long fingerprint = in.readLong();
+            long offset = in.readLong();
+            if (offset < dataSize) {
+                index.put(key, new IndexEntry(fingerprint, offset)); // Later entries replace earlier ones
+            }
+            position += FRAME_HEADER_BYTES + payload.remaining();
+        }
+        if (position < indexFile.size()) {
+            indexFile.truncate(position);
+        }
+    }
+
+    private void closeChannels() throws IOException {
+        try {
+            data.close();
+        } finally {
+            indexFile.close();
+        }
+    }
+
+    /**
+     * Writes a payload framed with its length and checksum at a position of a file.
+     */
+    private static void writeFrame(FileChannel channel, long position, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.length);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (frame.hasRemaining()) {
+            position += channel.write(frame, position);
+        }
+    }
+
+    /**
+     * Reads the framed payload at a position of a file.
+     *
+     * @return The payload, or null if the frame is incomplete or fails its checksum.
+     */
+    private static ByteBuffer readFrame(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        if (!readFully(channel, header, position)) {
+            return null;
+        }
+        int length = header.getInt(0);
+        int checksum = header.getInt(4);
+        if (length < 0 || length > channel.size() - position - FRAME_HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        if (!readFully(channel, payload, position + FRAME_HEADER_BYTES)) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, length);
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        return payload.flip();
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mix(long hash, long value) {
+        hash ^= value;
+        hash *= 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * The fingerprint and position of the latest record of a spec.
+     */
+    private static final class IndexEntry {
+        private final long fingerprint;
+        private final long offset;
+
+        private IndexEntry(long fingerprint, long offset) {
+            this.fingerprint = fingerprint;
+            this.offset = offset;
+        }
+    }
+}
\ No newline at end of file
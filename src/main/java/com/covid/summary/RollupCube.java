@@ -0,0 +1,297 @@
+package com.covid.summary;
+
+import com.covid.data.Data;
+import com.covid.util.DateRange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The `RollupCube` class holds pre-aggregated totals for every location and continent, bucketed
+ * by calendar week and month.  It is built once at load time so that `Summary` can answer
+ * queries whose date range lines up with bucket boundaries without re-scanning the daily rows.
+ * Days are not rolled up: a day bucket of a location is just its row, so a daily cube would copy
+ * the whole dataset without saving any work.
+ *
+ * The buckets of each area and period are kept in parallel arrays of primitives, sorted by bucket
+ * start, so the cube costs a few dozen bytes per bucket; `Cell` objects are only created for the
+ * buckets a query returns.
+ */
+public class RollupCube {
+
+    private static final Set<Summary.Period> PERIODS = EnumSet.of(Summary.Period.WEEK, Summary.Period.MONTH); // Periods rolled up
+
+    // Area name (lower case) -> period -> buckets of the area
+    private final Map<String, Map<Summary.Period, Buckets>> buckets;
+
+    private RollupCube(Map<String, Map<Summary.Period, Buckets>> buckets) {
+        this.buckets = buckets;
+    }
+
+    /**
+     * Builds a rollup cube from the loaded data.  Each location is rolled up weekly and monthly on
+     * its own rows first, and the per-location buckets are then summed into the buckets of
+     * every area the location belongs to (its own name and its continent).
+     *
+     * @param allData The complete list of `Data` objects, as returned by `DataReader.readCSV`.
+     * @return A new `RollupCube` covering every location and continent in the data.
+     * @throws IllegalArgumentException if the data list is null.
+     */
+    public static RollupCube build(List<Data> allData) {
+        if (allData == null) {
+            throw new IllegalArgumentException("Data list must not be null");
+        }
+
+        // Roll up each location on its own rows, remembering which areas it contributes to
+        Map<String, Map<Summary.Period, Buckets>> locationBuckets = new HashMap<>();
+        Map<String, List<String>> areasByLocation = new HashMap<>();
+
+        for (Data data : allData) {
+            if (data == null) {
+                continue;
+            }
+            String location = data.getLocation();
+            Map<Summary.Period, Buckets> periods = locationBuckets.computeIfAbsent(location, k -> {
+                areasByLocation.put(k, areasOf(data));
+                return newPeriodMap();
+            });
+            for (Summary.Period period : PERIODS) {
+                periods.get(period).add(period.bucketStart(data.getEpochDay()), data);
+            }
+        }
+
+        // Group the per-location buckets by area
+        Map<String, Map<Summary.Period, List<Buckets>>> bucketsByArea = new HashMap<>();
+        for (Map.Entry<String, Map<Summary.Period, Buckets>> entry : locationBuckets.entrySet()) {
+            for (String area : areasByLocation.get(entry.getKey())) {
+                Map<Summary.Period, List<Buckets>> target = bucketsByArea.computeIfAbsent(area, k -> new EnumMap<>(Summary.Period.class));
+                for (Map.Entry<Summary.Period, Buckets> period : entry.getValue().entrySet()) {
+                    target.computeIfAbsent(period.getKey(), k -> new ArrayList<>()).add(period.getValue());
+                }
+            }
+        }
+
+        // Sum them into the buckets of each area
+        Map<String, Map<Summary.Period, Buckets>> areaBuckets = new HashMap<>();
+        for (Map.Entry<String, Map<Summary.Period, List<Buckets>>> entry : bucketsByArea.entrySet()) {
+            Map<Summary.Period, Buckets> periods = new EnumMap<>(Summary.Period.class);
+            for (Map.Entry<Summary.Period, List<Buckets>> period : entry.getValue().entrySet()) {
+                periods.put(period.getKey(), Buckets.sum(period.getValue()));
+            }
+            areaBuckets.put(entry.getKey(), periods);
+        }
+
+        return new RollupCube(areaBuckets);
+    }
+
+    /**
+     * Checks whether a query over the given area and date range can be answered from this cube,
+     * i.e. the period is rolled up, the area is known and the range starts and ends exactly on
+     * bucket boundaries.
+     *
+     * @param area      The location or continent name (case-insensitive).
+     * @param period    The bucket size of the query.
+     * @param dateRange The date range of the query.
+     * @return True if the query aligns with the precomputed buckets.
+     */
+    public boolean canAnswer(String area, Summary.Period period, DateRange dateRange) {
+        if (area == null || period == null || dateRange == null || !PERIODS.contains(period)) {
+            return false;
+        }
+        return buckets.containsKey(area.toLowerCase(Locale.ROOT))
+            && period.bucketStart(dateRange.getStartEpochDay()) == dateRange.getStartEpochDay()
+            && period.bucketEnd(dateRange.getEndEpochDay()) == dateRange.getEndEpochDay();
+    }
+
+    /**
+     * Returns the precomputed cells for an area whose buckets fall inside the given date range,
+     * in chronological order.  Buckets without any data are not included.
+     *
+     * @param area      The location or continent name (case-insensitive).
+     * @param period    The bucket size.
+     * @param dateRange The date range to return cells for.
+     * @return An unmodifiable list of cells, empty if the area is unknown or the period is not rolled up.
+     */
+    public List<Cell> cells(String area, Summary.Period period, DateRange dateRange) {
+        Map<Summary.Period, Buckets> periods = buckets.get(area.toLowerCase(Locale.ROOT));
+        if (periods == null || !PERIODS.contains(period)) {
+            return Collections.emptyList();
+        }
+        Buckets areaBuckets = periods.get(period);
+        int from = areaBuckets.lowerBound(period.bucketStart(dateRange.getStartEpochDay()));
+        int to = areaBuckets.lowerBound(period.bucketStart(dateRange.getEndEpochDay()) + 1);
+        List<Cell> cells = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            cells.add(areaBuckets.cell(i));
+        }
+        return Collections.unmodifiableList(cells);
+    }
+
+    /**
+     * Returns the lower-case names of the areas a row is counted under, matching the way the user
+     * interface selects data by either location or continent name.
+     */
+    private static List<String> areasOf(Data data) {
+        List<String> areas = new ArrayList<>(2);
+        String location = data.getLocation().toLowerCase(Locale.ROOT);
+        String continent = data.getContinent().toLowerCase(Locale.ROOT);
+        areas.add(location);
+        if (!continent.isEmpty() && !continent.equals(location)) {
+            areas.add(continent);
+        }
+        return areas;
+    }
+
+    private static Map<Summary.Period, Buckets> newPeriodMap() {
+        Map<Summary.Period, Buckets> periods = new EnumMap<>(Summary.Period.class);
+        for (Summary.Period period : PERIODS) {
+            periods.put(period, new Buckets(16));
+        }
+        return periods;
+    }
+
+    /**
+     * The buckets of one area and period, as parallel arrays sorted by bucket start.
+     */
+    private static final class Buckets {
+        private int size;           // Number of buckets
+        private int[] starts;       // Bucket start of each bucket, as an epoch day, increasing
+        private int[] firstDates;   // Earliest date with data in each bucket, as an epoch day
+        private int[] lastDates;    // Latest date with data in each bucket, as an epoch day
+        private int[] newCases;     // Sum of new cases in each bucket
+        private int[] newDeaths;    // Sum of new deaths in each bucket
+        private int[] vaccinated;   // Sum of each location's latest people vaccinated in each bucket
+
+        private Buckets(int capacity) {
+            starts = new int[capacity];
+            firstDates = new int[capacity];
+            lastDates = new int[capacity];
+            newCases = new int[capacity];
+            newDeaths = new int[capacity];
+            vaccinated = new int[capacity];
+        }
+
+        /**
+         * Adds a daily row of a single location.  Rows must be added in date order.
+         */
+        private void add(int start, Data data) {
+            if (size == 0 || starts[size - 1] != start) {
+                if (size == starts.length) {
+                    grow();
+                }
+                starts[size] = start;
+                firstDates[size] = data.getEpochDay();
+                size++;
+            }
+            int last = size - 1;
+            lastDates[last] = data.getEpochDay();
+            newCases[last] += data.getNewCases();
+            newDeaths[last] += data.getNewDeaths();
+            vaccinated[last] = data.getPeopleVaccinated(); // Cumulative column, keep the latest value
+        }
+
+        private void grow() {
+            int capacity = starts.length * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            firstDates = Arrays.copyOf(firstDates, capacity);
+            lastDates = Arrays.copyOf(lastDates, capacity);
+            newCases = Arrays.copyOf(newCases, capacity);
+            newDeaths = Arrays.copyOf(newDeaths, capacity);
+            vaccinated = Arrays.copyOf(vaccinated, capacity);
+        }
+
+        /**
+         * Sums the (single-location) buckets of the locations of an area into buckets over the union
+         * of their bucket starts.
+         */
+        private static Buckets sum(List<Buckets> locations) {
+            int[] starts = locations.stream()
+                .flatMapToInt(location -> Arrays.stream(location.starts, 0, location.size))
+                .sorted().distinct().toArray();
+            Buckets sum = new Buckets(starts.length);
+            sum.size = starts.length;
+            sum.starts = starts;
+            Arrays.fill(sum.firstDates, Integer.MAX_VALUE);
+            Arrays.fill(sum.lastDates, Integer.MIN_VALUE);
+            for (Buckets location : locations) {
+                int j = 0;
+                for (int i = 0; i < location.size; i++) {
+                    while (starts[j] != location.starts[i]) {
+                        j++;
+                    }
+                    sum.firstDates[j] = Math.min(sum.firstDates[j], location.firstDates[i]);
+                    sum.lastDates[j] = Math.max(sum.lastDates[j], location.lastDates[i]);
+                    sum.newCases[j] += location.newCases[i];
+                    sum.newDeaths[j] += location.newDeaths[i];
+                    sum.vaccinated[j] += location.vaccinated[i];
+                }
+            }
+            return sum;
+        }
+
+        /**
+         * Returns the index of the first bucket starting on or after a date.
+         */
+        private int lowerBound(int start) {
+            int index = Arrays.binarySearch(starts, 0, size, start);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        private Cell cell(int index) {
+            return new Cell(firstDates[index], lastDates[index], newCases[index], newDeaths[index], vaccinated[index]);
+        }
+    }
+
+    /**
+     * A single precomputed bucket: the first and last dates that have data, the summed new cases
+     * and new deaths, and the people vaccinated as of the last date of each contributing location.
+     */
+    public static class Cell {
+        private final int firstDate;        // Earliest date with data in the bucket, as an epoch day
+        private final int lastDate;         // Latest date with data in the bucket, as an epoch day
+        private final int newCases;         // Sum of new cases in the bucket
+        private final int newDeaths;        // Sum of new deaths in the bucket
+        private final int peopleVaccinated; // Sum of each location's latest people vaccinated in the bucket
+
+        private Cell(int firstDate, int lastDate, int newCases, int newDeaths, int peopleVaccinated) {
+            this.firstDate = firstDate;
+            this.lastDate = lastDate;
+            this.newCases = newCases;
+            this.newDeaths = newDeaths;
+            this.peopleVaccinated = peopleVaccinated;
+        }
+
+        /**
+         * @return The date range between the first and last dates with data in the bucket.
+         */
+        public DateRange getDateRange() { return DateRange.ofEpochDays(firstDate, lastDate); }
+
+        /**
+         * Returns the bucket total for the given metric.
+         *
+         * @param metric The metric to return.
+         * @return The total for the metric.
+         * @throws IllegalStateException if an unexpected metric is encountered.
+         */
+        public int getValue(Summary.Metric metric) {
+            switch (metric) {
+                case POSITIVE_CASES:
+                    return newCases;
+                case DEATHS:
+                    return newDeaths;
+                case PEOPLE_VACCINATED:
+                    return peopleVaccinated;
+                default:
+                    throw new IllegalStateException("Unexpected metric: " + metric);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.covid.summary;
+
+/**
+ * The `ScalarKernels` class runs the aggregation kernels as plain Java loops: straight counted loops
+ * over primitive arrays, with the sums split over independent accumulators, which is the shape the
+ * JIT compiler unrolls and auto-vectorizes on its own.  It is the fallback when the Vector API is
+ * not available.
+ */
+final class ScalarKernels implements ColumnKernels {
+
+    @Override
+    public long sum(int[] values, int from, int to) {
+        long sum0 = 0;
+        long sum1 = 0;
+        long sum2 = 0;
+        long sum3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            sum0 += values[i];
+            sum1 += values[i + 1];
+            sum2 += values[i + 2];
+            sum3 += values[i + 3];
+        }
+        for (; i < to; i++) {
+            sum0 += values[i];
+        }
+        return sum0 + sum1 + sum2 + sum3;
+    }
+
+    @Override
+    public long sum(long[] values, int from, int to) {
+        long sum0 = 0;
+        long sum1 = 0;
+        long sum2 = 0;
+        long sum3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            sum0 += values[i];
+            sum1 += values[i + 1];
+            sum2 += values[i + 2];
+            sum3 += values[i + 3];
+        }
+        for (; i < to; i++) {
+            sum0 += values[i];
+        }
+        return sum0 + sum1 + sum2 + sum3;
+    }
+
+    @Override
+    public int max(int[] values, int from, int to) {
+        int max = Integer.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public long max(long[] values, int from, int to) {
+        long max = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public void adjacentDifference(int[] values, int from, int to, int previous, int[] out) {
+        if (from == to) {
+            return;
+        }
+        out[0] = values[from] - previous;
+        for (int i = from + 1; i < to; i++) {
+            out[i - from] = values[i] - values[i - 1];
+        }
+    }
+
+    @Override
+    public void adjacentDifference(long[] values, int from, int to, long previous, long[] out) {
+        if (from == to) {
+            return;
+        }
+        out[0] = values[from] - previous;
+        for (int i = from + 1; i < to; i++) {
+            out[i - from] = values[i] - values[i - 1];
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "scalar";
+    }
+}
\ No newline at end of file
@@ -1,10 +1,15 @@
 package com.covid.summary;
 
 import com.covid.data.Data;
+import com.covid.metrics.Metrics;
 import com.covid.util.DateRange;
+import com.covid.util.EpochDays;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.TreeMap;
 
 /**
  * The `Summary` class calculates summary statistics for COVID-19 data based on different metrics,
@@ -22,7 +27,53 @@ public class Summary {
      */
     public enum ResultType { NEW_TOTAL, UP_TO }
 
-    private final List<List<Data>> groupedData; // Data grouped according to the chosen strategy
+    /**
+     * Represents a calendar bucket size (day, ISO week starting on Monday, or month).
+     */
+    public enum Period {
+        DAY, WEEK, MONTH;
+
+        /**
+         * Returns the first date of the bucket containing the given date.
+         *
+         * @param epochDay The date, as days since 1970-01-01.
+         * @return The start date of the bucket, as days since 1970-01-01.
+         */
+        public int bucketStart(int epochDay) {
+            switch (this) {
+                case DAY:
+                    return epochDay;
+                case WEEK:
+                    return epochDay - EpochDays.dayOfWeek(epochDay) + 1;
+                case MONTH:
+                    return EpochDays.startOfMonth(epochDay);
+                default:
+                    throw new IllegalStateException("Unexpected period: " + this);
+            }
+        }
+
+        /**
+         * Returns the last date of the bucket containing the given date.
+         *
+         * @param epochDay The date, as days since 1970-01-01.
+         * @return The end date of the bucket, as days since 1970-01-01.
+         */
+        public int bucketEnd(int epochDay) {
+            switch (this) {
+                case DAY:
+                    return epochDay;
+                case WEEK:
+                    return epochDay - EpochDays.dayOfWeek(epochDay) + 7;
+                case MONTH:
+                    return EpochDays.endOfMonth(epochDay);
+                default:
+                    throw new IllegalStateException("Unexpected period: " + this);
+            }
+        }
+    }
+
+    private final List<List<Data>> groupedData; // Data grouped according to the chosen strategy, or null if rolled up
+    private final List<RollupCube.Cell> rolledUpData; // Precomputed buckets answering the query, or null if grouped
     private final Metric metric; // The metric to calculate the summary for
     private final ResultType resultType; // The type of result to calculate
 
@@ -42,7 +93,42 @@ public class Summary {
         if (groupingStrategy == null || metric == null || resultType == null) {
             throw new IllegalArgumentException("Grouping strategy, metric, and result type must not be null");
         }
-        this.groupedData = groupingStrategy.group(data);
+        this.groupedData = group(groupingStrategy, data);
+        this.rolledUpData = null;
+        this.metric = metric;
+        this.resultType = resultType;
+    }
+
+    /**
+     * Constructs a `Summary` object that is answered from a `RollupCube` when possible.  The cube is
+     * consulted only when the grouping is by calendar period and the date range starts and ends on
+     * bucket boundaries; otherwise the data is grouped as usual.
+     *
+     * @param data             The list of `Data` objects to summarize.
+     * @param groupingStrategy The strategy to group the data.
+     * @param metric           The metric to calculate the summary for.
+     * @param resultType       The type of result to calculate.
+     * @param rollup           The precomputed rollup cube, or null to always use the raw data.
+     * @param area             The location or continent the data was selected for.
+     * @param dateRange        The date range the data was selected for.
+     * @throws IllegalArgumentException if any of the input parameters are invalid.
+     */
+    public Summary(List<Data> data, GroupingStrategy groupingStrategy, Metric metric, ResultType resultType,
+                   RollupCube rollup, String area, DateRange dateRange) {
+        if (data == null || data.isEmpty()) {
+            throw new IllegalArgumentException("Data list must not be null or empty");
+        }
+        if (groupingStrategy == null || metric == null || resultType == null) {
+            throw new IllegalArgumentException("Grouping strategy, metric, and result type must not be null");
+        }
+        Period period = (groupingStrategy instanceof ByPeriod) ? ((ByPeriod) groupingStrategy).getPeriod() : null;
+        if (rollup != null && period != null && rollup.canAnswer(area, period, dateRange)) {
+            this.groupedData = null;
+            this.rolledUpData = rollup.cells(area, period, dateRange);
+        } else {
+            this.groupedData = group(groupingStrategy, data);
+            this.rolledUpData = null;
+        }
         this.metric = metric;
         this.resultType = resultType;
     }
@@ -53,6 +139,20 @@ public class Summary {
      * @return A list of `SummaryResult` objects, each representing the summary for a group.
      */
     public List<SummaryResult> calculate() {
+        Metrics.Sample sample = Metrics.begin(Metrics.Stage.CALCULATE);
+        try {
+            return (rolledUpData != null) ? calculateRolledUp() : calculateGrouped();
+        } finally {
+            Metrics.end(sample);
+        }
+    }
+
+    /**
+     * Calculates the summary results from the grouped data.
+     *
+     * @return A list of `SummaryResult` objects, each representing the summary for a group.
+     */
+    private List<SummaryResult> calculateGrouped() {
         List<SummaryResult> results = new ArrayList<>();
         int runningTotal = 0; // Stores the running total for UP_TO result type
 
@@ -65,9 +165,9 @@ public class Summary {
             runningTotal += groupTotal; // Update the running total
 
             // Create a DateRange object representing the date range of the current group
-            DateRange dateRange = new DateRange(
-                group.get(0).getDate(),
-                group.get(group.size() - 1).getDate()
+            DateRange dateRange = DateRange.ofEpochDays(
+                group.get(0).getEpochDay(),
+                group.get(group.size() - 1).getEpochDay()
             );
 
             // Determine the value to use based on the result type
@@ -80,6 +180,39 @@ public class Summary {
         return results;
     }
 
+    /**
+     * Groups the data with the given strategy, recording the grouping stage metrics.
+     */
+    private static List<List<Data>> group(GroupingStrategy groupingStrategy, List<Data> data) {
+        Metrics.Sample sample = Metrics.begin(Metrics.Stage.GROUP);
+        try {
+            List<List<Data>> groups = groupingStrategy.group(data);
+            Metrics.increment(Metrics.Counter.GROUPS_CREATED, groups.size());
+            return groups;
+        } finally {
+            Metrics.end(sample);
+        }
+    }
+
+    /**
+     * Calculates the summary results from the precomputed rollup cells.
+     *
+     * @return A list of `SummaryResult` objects, one per non-empty bucket.
+     */
+    private List<SummaryResult> calculateRolledUp() {
+        List<SummaryResult> results = new ArrayList<>(rolledUpData.size());
+        int runningTotal = 0; // Stores the running total for UP_TO result type
+
+        for (RollupCube.Cell cell : rolledUpData) {
+            int groupTotal = cell.getValue(metric);
+            runningTotal += groupTotal;
+            int value = (resultType == ResultType.NEW_TOTAL) ? groupTotal : runningTotal;
+            results.add(new SummaryResult(cell.getDateRange(), value));
+        }
+
+        return results;
+    }
+
 
     /**
      * Calculates the total value for a given group based on the chosen metric.
@@ -89,24 +222,80 @@ public class Summary {
      * @throws IllegalStateException if an unexpected metric is encountered.
      */
     private int calculateGroupTotal(List<Data> group) {
-        return group.stream().mapToInt(data -> {
-            if (data == null) {
-                return 0; // Handle null data points
+        if (metric == Metric.PEOPLE_VACCINATED) {
+            // The vaccinated column is cumulative, so the differences between consecutive days of a location
+            // add up to its latest value in the group.  Sum that latest value over every location in the group.
+            String[] locations = new String[8]; // Locations seen so far in the group
+            int[] latest = new int[8];          // Latest people vaccinated of each location seen
+            int count = 0;
+            int slot = -1;                      // Slot of the previous row's location
+            for (Data data : group) {
+                if (data == null) {
+                    continue;
+                }
+                slot = slotOf(locations, count, slot, data.getLocation());
+                if (slot == count) {
+                    if (count == locations.length) {
+                        locations = Arrays.copyOf(locations, count * 2);
+                        latest = Arrays.copyOf(latest, count * 2);
+                    }
+                    locations[count++] = data.getLocation();
+                }
+                latest[slot] = data.getPeopleVaccinated();
             }
-            switch (metric) {
-                case POSITIVE_CASES:
-                    return data.getNewCases();
-                case DEATHS:
-                    return data.getNewDeaths();
-                case PEOPLE_VACCINATED:
-                    // Calculate the difference in vaccination numbers to get the new vaccinations for the period
-                    int currentVaccinated = data.getPeopleVaccinated();
-                    int previousVaccinated = group.indexOf(data) > 0 ? group.get(group.indexOf(data) - 1).getPeopleVaccinated() : 0;
-                    return currentVaccinated - previousVaccinated;
-                default:
-                    throw new IllegalStateException("Unexpected metric: " + metric);
+            return (int) AggregationKernels.sum(latest, 0, count);
+        }
+
+        // Sum straight from the rows; copying them into a column first would cost more than the sum
+        int total = 0;
+        for (Data data : group) {
+            total += metricValue(data);
+        }
+        return total;
+    }
+
+    /**
+     * Finds the slot of a location among those seen so far.  Rows come either as runs of one
+     * location or in the same location order day after day, so the previous row's slot and the
+     * one after it are tried before the others.
+     *
+     * @return The slot, or `count` if the location has not been seen yet.
+     */
+    private static int slotOf(String[] locations, int count, int previous, String location) {
+        if (previous >= 0 && location.equals(locations[previous])) {
+            return previous;
+        }
+        int next = previous + 1 < count ? previous + 1 : 0;
+        if (next < count && location.equals(locations[next])) {
+            return next;
+        }
+        for (int i = 0; i < count; i++) {
+            if (location.equals(locations[i])) {
+                return i;
             }
-        }).sum();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the value of the chosen (non-cumulative) metric for a single row.
+     *
+     * @param data The row, may be null.
+     * @return The metric value, or 0 for a null row.
+     * @throws IllegalStateException if an unexpected metric is encountered.
+     */
+    private int metricValue(Data data) {
+        if (data == null) {
+            return 0; // Handle null data points
+        }
+        switch (metric) {
+            case POSITIVE_CASES:
+                return data.getNewCases();
+            case DEATHS:
+                return data.getNewDeaths();
+            default:
+                throw new IllegalStateException("Unexpected metric: " + metric);
+        }
     }
 
 
@@ -137,6 +326,11 @@ public class Summary {
         public List<List<Data>> group(List<Data> data) {
             return data.stream().map(d -> List.of(d)).collect(java.util.stream.Collectors.toList());
         }
+
+        @Override
+        public String describe() {
+            return "NoGrouping";
+        }
     }
 
     public static class NumberOfGroups implements GroupingStrategy {
@@ -149,6 +343,8 @@ public class Summary {
             this.numberOfGroups = numberOfGroups;
         }
 
+        public int getNumberOfGroups() { return numberOfGroups; }
+
         @Override
         public List<List<Data>> group(List<Data> data) {
             List<List<Data>> groups = new ArrayList<>();
@@ -165,6 +361,11 @@ public class Summary {
 
             return groups;
         }
+
+        @Override
+        public String describe() {
+            return "NumberOfGroups(" + numberOfGroups + ")";
+        }
     }
 
     public static class NumberOfDays implements GroupingStrategy {
@@ -177,6 +378,8 @@ public class Summary {
             this.daysPerGroup = daysPerGroup;
         }
 
+        public int getDaysPerGroup() { return daysPerGroup; }
+
         @Override
         public List<List<Data>> group(List<Data> data) {
             List<List<Data>> groups = new ArrayList<>();
@@ -185,5 +388,47 @@ public class Summary {
             }
             return groups;
         }
+
+        @Override
+        public String describe() {
+            return "NumberOfDays(" + daysPerGroup + ")";
+        }
+    }
+
+    /**
+     * Groups data by calendar day, week or month.  Rows of every location falling in the same bucket
+     * are put in one group, ordered by date, so continent selections are aggregated per bucket.
+     */
+    public static class ByPeriod implements GroupingStrategy {
+        private final Period period;
+
+        public ByPeriod(Period period) {
+            if (period == null) {
+                throw new IllegalArgumentException("Period must not be null");
+            }
+            this.period = period;
+        }
+
+        public Period getPeriod() { return period; }
+
+        @Override
+        public List<List<Data>> group(List<Data> data) {
+            TreeMap<Integer, List<Data>> buckets = new TreeMap<>();
+            for (Data d : data) {
+                if (d != null) {
+                    buckets.computeIfAbsent(period.bucketStart(d.getEpochDay()), k -> new ArrayList<>()).add(d);
+                }
+            }
+            List<List<Data>> groups = new ArrayList<>(buckets.values());
+            for (List<Data> group : groups) {
+                group.sort(Comparator.comparingInt(Data::getEpochDay)); // Stable, keeps each location's rows in order
+            }
+            return groups;
+        }
+
+        @Override
+        public String describe() {
+            return "ByPeriod(" + period + ")";
+        }
     }
 }
\ No newline at end of file
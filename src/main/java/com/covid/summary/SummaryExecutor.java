@@ -0,0 +1,412 @@
+package com.covid.summary;
+
+import com.covid.data.Data;
+import com.covid.data.Dataset;
+import com.covid.metrics.Metrics;
+import com.covid.util.DateRange;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The `SummaryExecutor` class computes many summaries at once on a `ForkJoinPool`.  Specs are
+ * partitioned by area and each area becomes one task, which forks one subtask per location of the
+ * area, so a continent is spread over the pool and idle workers steal locations from busy ones.
+ * Each location's prefix sums are built once per batch and shared by every spec and area of the
+ * batch that includes it, so a group total over any date range is a subtraction.  They are dropped
+ * when the batch ends, so an off-heap dataset is only copied onto the heap for the duration of a
+ * batch.  Results are returned in the order of the specs, whatever order the tasks finish in.
+ *
+ * With a `ResultStore`, results computed in earlier runs are read back instead of computed again,
+ * as long as the rows selected for them have not changed, and new results are added to the store.
+ * A batch over a dataset where only a few locations changed then only computes the specs of those
+ * locations and of the continents they belong to.
+ *
+ * The dataset is only read, so one executor can run several batches, including concurrently.
+ */
+public class SummaryExecutor {
+
+    private final Dataset dataset;    // Shared read-only data, indexed by area
+    private final RollupCube rollup;  // Precomputed rollup cube, or null
+    private final ForkJoinPool pool;  // Pool the tasks run on
+    private final ResultStore store;  // Results kept between runs, or null
+
+    /**
+     * Constructs a `SummaryExecutor` running on the common fork/join pool.
+     *
+     * @param allData The complete list of `Data` objects.
+     * @param rollup  The rollup cube built from the data, or null to always summarize the raw data.
+     */
+    public SummaryExecutor(List<Data> allData, RollupCube rollup) {
+        this(new Dataset(allData), rollup, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a `SummaryExecutor`.
+     *
+     * @param dataset The shared dataset to select from.
+     * @param rollup  The rollup cube built from the data, or null to always summarize the raw data.
+     * @param pool    The pool to run the tasks on.
+     * @throws IllegalArgumentException if the dataset or pool is null.
+     */
+    public SummaryExecutor(Dataset dataset, RollupCube rollup, ForkJoinPool pool) {
+        this(dataset, rollup, pool, null);
+    }
+
+    /**
+     * Constructs a `SummaryExecutor` reusing and recording results in a store.
+     *
+     * @param dataset The shared dataset to select from.
+     * @param rollup  The rollup cube built from the data, or null to always summarize the raw data.
+     * @param pool    The pool to run the tasks on.
+     * @param store   The store of results computed in earlier runs, or null to compute every result.
+     * @throws IllegalArgumentException if the dataset or pool is null.
+     */
+    public SummaryExecutor(Dataset dataset, RollupCube rollup, ForkJoinPool pool, ResultStore store) {
+        if (dataset == null || pool == null) {
+            throw new IllegalArgumentException("Dataset and pool must not be null");
+        }
+        this.dataset = dataset;
+        this.rollup = rollup;
+        this.pool = pool;
+        this.store = store;
+    }
+
+    /**
+     * Computes the summaries described by the given specs.
+     *
+     * @param specs The summaries to compute.
+     * @return The results of each spec, in the same order as the specs.  A spec selecting no data,
+     *         or whose summary cannot be calculated (e.g. its grouping yields an invalid date range),
+     *         has an empty result list; the other specs of the batch are not affected.
+     * @throws IllegalArgumentException if the specs list is null or contains null.
+     * @throws java.io.UncheckedIOException if the result store cannot be read or written.
+     */
+    public List<List<Summary.SummaryResult>> execute(List<SummarySpec> specs) {
+        if (specs == null || specs.stream().anyMatch(Objects::isNull)) { // contains(null) throws on immutable lists
+            throw new IllegalArgumentException("Specs must not be null");
+        }
+
+        // Partition the specs by area, keeping each spec's position for the results; specs naming
+        // the same area differently (e.g. by ISO code) share a task
+        Map<String, List<Integer>> specsByArea = new LinkedHashMap<>();
+        for (int i = 0; i < specs.size(); i++) {
+            String area = specs.get(i).getArea();
+            String resolved = dataset.resolveArea(area);
+            specsByArea.computeIfAbsent((resolved != null ? resolved : area).toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(i);
+        }
+
+        AtomicReferenceArray<List<Summary.SummaryResult>> results = new AtomicReferenceArray<>(specs.size());
+        Map<String, PrefixSums> prefixSums = new ConcurrentHashMap<>(); // Location -> prefix sums, for this batch only
+        List<AreaTask> tasks = new ArrayList<>(specsByArea.size());
+        for (Map.Entry<String, List<Integer>> entry : specsByArea.entrySet()) {
+            tasks.add(new AreaTask(entry.getKey(), entry.getValue(), specs, results, prefixSums));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        List<List<Summary.SummaryResult>> ordered = new ArrayList<>(specs.size());
+        for (int i = 0; i < specs.size(); i++) {
+            ordered.add(results.get(i));
+        }
+        return ordered;
+    }
+
+    /**
+     * Checks whether a spec is computed from the per-location prefix sums: its grouping must be one of
+     * the built-in strategies, whose groups can be put together from per-location parts, and the
+     * rollup cube must not already hold its answer.
+     */
+    private boolean usesPrefixSums(String area, SummarySpec spec) {
+        GroupingStrategy strategy = spec.getGroupingStrategy();
+        Class<?> type = strategy.getClass();
+        if (type == Summary.ByPeriod.class) {
+            return rollup == null || !rollup.canAnswer(area, ((Summary.ByPeriod) strategy).getPeriod(), spec.getDateRange());
+        }
+        return type == Summary.NoGrouping.class || type == Summary.NumberOfGroups.class || type == Summary.NumberOfDays.class;
+    }
+
+    /**
+     * Splits a location's rows of a spec into its parts of the spec's groups, in group order.  The
+     * groups are those `Summary` forms over the concatenated rows of the area, in which the
+     * location's rows start at the given offset.
+     *
+     * @param prefix    The prefix sums of the location.
+     * @param spec      The spec.
+     * @param from      The location's first selected row (inclusive).
+     * @param to        The location's last selected row (exclusive).
+     * @param offset    The position of the location's first selected row in the area's selection.
+     * @param totalRows The number of rows selected for the area.
+     * @return The parts, one per group the location has rows in.
+     */
+    private static List<GroupPart> partsOf(PrefixSums prefix, SummarySpec spec, int from, int to, int offset, int totalRows) {
+        GroupingStrategy strategy = spec.getGroupingStrategy();
+        Summary.Metric metric = spec.getMetric();
+        List<GroupPart> parts = new ArrayList<>();
+        int row = from;
+        while (row < to) {
+            int position = offset + row - from; // Position of the row in the area's selection
+            long key;
+            int end;
+            if (strategy instanceof Summary.ByPeriod) {
+                Summary.Period period = ((Summary.ByPeriod) strategy).getPeriod();
+                key = period.bucketStart(prefix.dateAt(row));
+                end = Math.min(to, prefix.lowerBound(period.bucketEnd(prefix.dateAt(row)) + 1));
+            } else if (strategy instanceof Summary.NumberOfDays) {
+                int daysPerGroup = ((Summary.NumberOfDays) strategy).getDaysPerGroup();
+                key = position / daysPerGroup;
+                end = (int) Math.min(to, (long) row + daysPerGroup - position % daysPerGroup);
+            } else if (strategy instanceof Summary.NumberOfGroups) {
+                // The first (totalRows % groups) groups hold one row more than the others
+                int groups = ((Summary.NumberOfGroups) strategy).getNumberOfGroups();
+                int baseSize = totalRows / groups;
+                int remainder = totalRows % groups;
+                int largeRows = remainder * (baseSize + 1);
+                int group = position < largeRows ? position / (baseSize + 1) : remainder + (position - largeRows) / baseSize;
+                int groupEnd = (group + 1) * baseSize + Math.min(group + 1, remainder);
+                key = group;
+                end = Math.min(to, row + groupEnd - position);
+            } else {
+                key = position; // No grouping, one group per row
+                end = row + 1;
+            }
+            parts.add(new GroupPart(key, prefix.dateAt(row), prefix.dateAt(end - 1), prefix.total(metric, row, end)));
+            row = end;
+        }
+        return parts;
+    }
+
+    /**
+     * Puts the groups of a spec together from the parts of each location, in location order, and
+     * calculates the results as `Summary` does.
+     *
+     * @throws IllegalArgumentException if a group has an invalid date range.
+     */
+    private static List<Summary.SummaryResult> merge(SummarySpec spec, List<List<GroupPart>> partsByLocation) {
+        Metrics.Sample sample = Metrics.begin(Metrics.Stage.CALCULATE);
+        try {
+            boolean sortedByDate = spec.getGroupingStrategy() instanceof Summary.ByPeriod;
+            TreeMap<Long, GroupPart> groups = new TreeMap<>();
+            for (List<GroupPart> parts : partsByLocation) {
+                for (GroupPart part : parts) {
+                    groups.merge(part.key, part, (group, next) -> group.add(next, sortedByDate));
+                }
+            }
+
+            List<Summary.SummaryResult> results = new ArrayList<>(groups.size());
+            int runningTotal = 0;
+            for (GroupPart group : groups.values()) {
+                int groupTotal = (int) group.total;
+                runningTotal += groupTotal;
+                int value = (spec.getResultType() == Summary.ResultType.NEW_TOTAL) ? groupTotal : runningTotal;
+                results.add(new Summary.SummaryResult(DateRange.ofEpochDays(group.firstDate, group.lastDate), value));
+            }
+            return Collections.unmodifiableList(results);
+        } finally {
+            Metrics.end(sample);
+        }
+    }
+
+    /**
+     * Computes every spec of one area.  Specs with a built-in grouping are computed from the prefix
+     * sums of the area's locations: the sums are built, and each location's parts of the groups are
+     * found, in one subtask per location, so a continent spreads over the pool; the parts are then
+     * merged in location order.  Other specs are summarized from the selected rows, which are shared
+     * between specs with the same range, as is their fingerprint.
+     */
+    @SuppressWarnings("serial") // Tasks are never serialized
+    private final class AreaTask extends RecursiveAction {
+        private final String area;
+        private final List<Integer> specIndexes;
+        private final List<SummarySpec> specs;
+        private final AtomicReferenceArray<List<Summary.SummaryResult>> results;
+        private final Map<String, PrefixSums> prefixSums; // Prefix sums shared by the tasks of the batch
+
+        private AreaTask(String area, List<Integer> specIndexes, List<SummarySpec> specs,
+                         AtomicReferenceArray<List<Summary.SummaryResult>> results, Map<String, PrefixSums> prefixSums) {
+            this.area = area;
+            this.specIndexes = specIndexes;
+            this.specs = specs;
+            this.results = results;
+            this.prefixSums = prefixSums;
+        }
+
+        @Override
+        protected void compute() {
+            Map<Long, List<Data>> selectedByRange = new HashMap<>(); // Packed start/end epoch days -> selected rows
+            Map<Long, Long> fingerprintByRange = new HashMap<>();    // Packed start/end epoch days -> fingerprint of the rows
+            List<Integer> pending = new ArrayList<>();               // Specs to compute from the prefix sums
+            List<String> pendingKeys = new ArrayList<>();            // Their store keys, or null
+            List<Long> pendingFingerprints = new ArrayList<>();      // Their fingerprints
+
+            for (int index : specIndexes) {
+                SummarySpec spec = specs.get(index);
+                DateRange range = spec.getDateRange();
+                long rangeKey = ((long) range.getStartEpochDay() << 32) | (range.getEndEpochDay() & 0xFFFFFFFFL);
+
+                String storeKey = store == null ? null : ResultStore.keyOf(spec, area);
+                long fingerprint = 0;
+                if (storeKey != null) {
+                    List<Data> selected = selectedByRange.computeIfAbsent(rangeKey, k -> dataset.select(area, range));
+                    fingerprint = fingerprintByRange.computeIfAbsent(rangeKey, k -> ResultStore.fingerprint(selected));
+                    List<Summary.SummaryResult> stored = store.get(storeKey, fingerprint);
+                    if (stored != null) {
+                        Metrics.increment(Metrics.Counter.RESULTS_REUSED);
+                        results.set(index, stored);
+                        continue;
+                    }
+                }
+
+                if (usesPrefixSums(area, spec)) {
+                    pending.add(index);
+                    pendingKeys.add(storeKey);
+                    pendingFingerprints.add(fingerprint);
+                    continue;
+                }
+
+                List<Data> selected = selectedByRange.computeIfAbsent(rangeKey, k -> dataset.select(area, range));
+                if (selected.isEmpty()) {
+                    results.set(index, Collections.emptyList());
+                    continue;
+                }
+                List<Summary.SummaryResult> computed;
+                try {
+                    Summary summary = new Summary(selected, spec.getGroupingStrategy(), spec.getMetric(),
+                        spec.getResultType(), rollup, area, range);
+                    computed = Collections.unmodifiableList(summary.calculate());
+                } catch (IllegalArgumentException e) {
+                    results.set(index, Collections.emptyList()); // This spec failed, the others of the batch still count
+                    continue;
+                }
+                if (storeKey != null) {
+                    store.put(storeKey, fingerprint, computed);
+                }
+                results.set(index, computed);
+            }
+
+            if (!pending.isEmpty()) {
+                computeFromPrefixSums(pending, pendingKeys, pendingFingerprints);
+            }
+        }
+
+        private void computeFromPrefixSums(List<Integer> pending, List<String> pendingKeys, List<Long> pendingFingerprints) {
+            List<List<Data>> series = dataset.getSeries(area);
+            int locations = series.size();
+
+            // Build (or reuse) the prefix sums of each location, one subtask per location
+            PrefixSums[] prefixes = new PrefixSums[locations];
+            List<ForkJoinTask<?>> builds = new ArrayList<>(locations);
+            for (int l = 0; l < locations; l++) {
+                int location = l;
+                builds.add(ForkJoinTask.adapt(() -> prefixes[location] = prefixSums.computeIfAbsent(
+                    series.get(location).get(0).getLocation(), k -> new PrefixSums(series.get(location)))));
+            }
+            invokeAll(builds);
+
+            // Locate each spec's rows in each location, and where they fall in the area's selection
+            int[][] from = new int[pending.size()][locations];
+            int[][] to = new int[pending.size()][locations];
+            int[][] offsets = new int[pending.size()][locations];
+            int[] totalRows = new int[pending.size()];
+            for (int p = 0; p < pending.size(); p++) {
+                DateRange range = specs.get(pending.get(p)).getDateRange();
+                for (int l = 0; l < locations; l++) {
+                    from[p][l] = prefixes[l].lowerBound(range.getStartEpochDay());
+                    to[p][l] = Math.max(from[p][l], prefixes[l].lowerBound(range.getEndEpochDay() + 1));
+                    offsets[p][l] = totalRows[p];
+                    totalRows[p] += to[p][l] - from[p][l];
+                }
+            }
+
+            // Find each location's parts of every spec's groups, one subtask per location
+            AtomicReferenceArray<List<List<GroupPart>>> partsByLocation = new AtomicReferenceArray<>(locations);
+            List<ForkJoinTask<?>> splits = new ArrayList<>(locations);
+            for (int l = 0; l < locations; l++) {
+                int location = l;
+                splits.add(ForkJoinTask.adapt(() -> {
+                    List<List<GroupPart>> parts = new ArrayList<>(pending.size());
+                    for (int p = 0; p < pending.size(); p++) {
+                        parts.add(partsOf(prefixes[location], specs.get(pending.get(p)),
+                            from[p][location], to[p][location], offsets[p][location], totalRows[p]));
+                    }
+                    partsByLocation.set(location, parts);
+                }));
+            }
+            invokeAll(splits);
+
+            // Merge the parts of each spec in location order
+            for (int p = 0; p < pending.size(); p++) {
+                int index = pending.get(p);
+                if (totalRows[p] == 0) {
+                    results.set(index, Collections.emptyList());
+                    continue;
+                }
+                List<List<GroupPart>> specParts = new ArrayList<>(locations);
+                for (int l = 0; l < locations; l++) {
+                    specParts.add(partsByLocation.get(l).get(p));
+                }
+                List<Summary.SummaryResult> computed;
+                try {
+                    computed = merge(specs.get(index), specParts);
+                } catch (IllegalArgumentException e) {
+                    results.set(index, Collections.emptyList()); // This spec failed, the others of the batch still count
+                    continue;
+                }
+                if (pendingKeys.get(p) != null) {
+                    store.put(pendingKeys.get(p), pendingFingerprints.get(p), computed);
+                }
+                results.set(index, computed);
+            }
+        }
+    }
+
+    /**
+     * One location's part of a group: the dates of its first and last rows and its total.  Parts of
+     * the same group are added up in location order.
+     */
+    private static final class GroupPart {
+        private final long key;  // Group number, or bucket start for calendar periods
+        private int firstDate;   // Date of the group's first row
+        private int lastDate;    // Date of the group's last row
+        private long total;      // Total of the metric
+
+        private GroupPart(long key, int firstDate, int lastDate, long total) {
+            this.key = key;
+            this.firstDate = firstDate;
+            this.lastDate = lastDate;
+            this.total = total;
+        }
+
+        /**
+         * Adds the next location's part.  Groups by calendar period are sorted by date, so their
+         * range spans the earliest and latest dates; other groups keep the rows in selection order,
+         * so their range runs from the first part's first row to the last part's last row.
+         */
+        private GroupPart add(GroupPart next, boolean sortedByDate) {
+            if (sortedByDate) {
+                firstDate = Math.min(firstDate, next.firstDate);
+                lastDate = Math.max(lastDate, next.lastDate);
+            } else {
+                lastDate = next.lastDate;
+            }
+            total += next.total;
+            return this;
+        }
+    }
+}
\ No newline at end of file
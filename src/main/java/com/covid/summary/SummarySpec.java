@@ -0,0 +1,44 @@
+package com.covid.summary;
+
+import com.covid.util.DateRange;
+
+/**
+ * The `SummarySpec` class describes one summary to compute: the area and date range to select, and
+ * the grouping strategy, metric and result type to summarize them with.  Specs are immutable and can
+ * be shared between threads.
+ */
+public class SummarySpec {
+    private final String area;                       // Location or continent name (case-insensitive)
+    private final DateRange dateRange;               // Date range to select
+    private final GroupingStrategy groupingStrategy; // Strategy to group the selected data
+    private final Summary.Metric metric;             // Metric to calculate
+    private final Summary.ResultType resultType;     // Type of result to calculate
+
+    /**
+     * Constructs a `SummarySpec` object.
+     *
+     * @param area             The location or continent name.
+     * @param dateRange        The date range to select.
+     * @param groupingStrategy The strategy to group the selected data.
+     * @param metric           The metric to calculate the summary for.
+     * @param resultType       The type of result to calculate.
+     * @throws IllegalArgumentException if any of the input parameters are null.
+     */
+    public SummarySpec(String area, DateRange dateRange, GroupingStrategy groupingStrategy,
+                       Summary.Metric metric, Summary.ResultType resultType) {
+        if (area == null || dateRange == null || groupingStrategy == null || metric == null || resultType == null) {
+            throw new IllegalArgumentException("Area, date range, grouping strategy, metric, and result type must not be null");
+        }
+        this.area = area;
+        this.dateRange = dateRange;
+        this.groupingStrategy = groupingStrategy;
+        this.metric = metric;
+        this.resultType = resultType;
+    }
+
+    public String getArea() { return area; }
+    public DateRange getDateRange() { return dateRange; }
+    public GroupingStrategy getGroupingStrategy() { return groupingStrategy; }
+    public Summary.Metric getMetric() { return metric; }
+    public Summary.ResultType getResultType() { return resultType; }
+}
\ No newline at end of file
@@ -1,32 +1,36 @@
 package com.covid.ui;
 
 import com.covid.data.Data;
+import com.covid.data.Dataset;
+import com.covid.query.Query;
 import com.covid.summary.Summary;
 import com.covid.summary.GroupingStrategy;
+import com.covid.summary.RollupCube;
 import com.covid.display.Display;
 import com.covid.display.TabularDisplay;
 import com.covid.display.ChartDisplay;
+import com.covid.metrics.Metrics;
 import com.covid.util.DateRange;
+import com.covid.util.EpochDays;
 
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Scanner;
 
 /**
  * The `UserInterface` class handles user interaction for the COVID-19 data analysis application.
- * It allows users to select data, choose summary options, and display results.
+ * It allows users to select data, choose summary options, and display results.  The choices made
+ * so far are kept in an immutable `Query` over the shared dataset; each step replaces it with a
+ * new query, so the same dataset can serve other sessions at the same time.
  */
 public class UserInterface {
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("M/d/yyyy"); // Date formatter for user input
-    private Scanner scanner; // Scanner for user input
-    private List<Data> allData; // All data read from the CSV file
-    private List<Data> selectedData; // Data selected by the user based on location and date range
-    private Summary summary; // Summary object for calculating summary statistics
-    private Display display; // Display object for displaying the results
+    private static final int MAX_SUGGESTIONS = 5; // Areas suggested for an unknown location name
+
+    private final Scanner scanner; // Scanner for user input
+    private final Dataset dataset; // Shared dataset, for looking up location names
+    private final Query emptyQuery; // Query over the shared dataset with nothing chosen yet
+    private Query query; // Selection and summary options chosen so far in this session
 
 
     /**
@@ -34,8 +38,19 @@ public class UserInterface {
      * @param allData The complete list of COVID-19 data.
      */
     public UserInterface(List<Data> allData) {
+        this(new Dataset(allData), null);
+    }
+
+    /**
+     * Constructor for the UserInterface over a shared dataset with a precomputed rollup cube.
+     * @param dataset The shared COVID-19 dataset.
+     * @param rollup The rollup cube built from the data, or null to always summarize the raw data.
+     */
+    public UserInterface(Dataset dataset, RollupCube rollup) {
         this.scanner = new Scanner(System.in);
-        this.allData = allData;
+        this.dataset = dataset;
+        this.emptyQuery = Query.over(dataset, rollup);
+        this.query = emptyQuery;
     }
 
     /**
@@ -98,80 +113,101 @@ public class UserInterface {
     }
 
     private void selectData() {
-        System.out.print("Enter location (country or continent): ");
+        System.out.print("Enter location (country, continent or ISO code): ");
         String location = scanner.nextLine().trim();
 
-        LocalDate startDate = getValidDate("Enter start date (M/d/yyyy): ");
-        LocalDate endDate = getValidDate("Enter end date (M/d/yyyy): ");
+        // Check the name before asking for dates, and suggest the closest names on a typo
+        String area = dataset.resolveArea(location);
+        if (area == null) {
+            List<String> suggestions = dataset.suggestAreas(location, MAX_SUGGESTIONS);
+            if (suggestions.isEmpty()) {
+                System.out.println("Unknown location: " + location);
+            } else {
+                System.out.println("Unknown location: " + location + ". Did you mean: " + String.join(", ", suggestions) + "?");
+            }
+            return;
+        }
+        if (!area.equalsIgnoreCase(location)) {
+            System.out.println("Location: " + area);
+        }
 
-        if (endDate.isBefore(startDate)) {
+        int startDate = getValidDate("Enter start date (M/d/yyyy): ");
+        int endDate = getValidDate("Enter end date (M/d/yyyy): ");
+
+        if (endDate < startDate) {
             System.out.println("End date cannot be before start date. Please try again.");
             return;
         }
 
-        DateRange dateRange = new DateRange(startDate, endDate);
+        DateRange dateRange = DateRange.ofEpochDays(startDate, endDate);
 
-        selectedData = allData.stream()
-                .filter(d -> (d.getLocation().equalsIgnoreCase(location) || d.getContinent().equalsIgnoreCase(location))
-                        && !d.getDate().isBefore(dateRange.getStartDate())
-                        && !d.getDate().isAfter(dateRange.getEndDate()))
-                .toList();
+        // A new selection starts a new query, summary options have to be chosen again
+        Query selection = emptyQuery.withSelection(area, dateRange);
+        List<Data> selectedData = selection.select();
 
         if (selectedData.isEmpty()) {
             System.out.println("No data found for the specified location and date range.");
+            query = emptyQuery;
         } else {
             System.out.println("Data selected: " + selectedData.size() + " records");
+            query = selection;
         }
     }
 
-    private LocalDate getValidDate(String prompt) {
+    private int getValidDate(String prompt) {
         while (true) {
             System.out.print(prompt);
             String input = scanner.nextLine().trim();
-            try {
-                return LocalDate.parse(input, DATE_FORMATTER);
-            } catch (DateTimeParseException e) {
-                System.out.println("Invalid date format. Please use M/d/yyyy format.");
+            int date = EpochDays.parse(input);
+            if (date != EpochDays.INVALID) {
+                return date;
             }
+            System.out.println("Invalid date format. Please use M/d/yyyy format.");
         }
     }
 
     private void chooseSummaryOptions() {
-        if (selectedData == null || selectedData.isEmpty()) {
+        if (!query.hasSelection()) {
             System.out.println("Please select data first.");
             return;
         }
 
-        GroupingStrategy groupingStrategy = chooseGroupingStrategy();
+        // The rows were selected by selectData, the query hands back the same list
+        GroupingStrategy groupingStrategy = chooseGroupingStrategy(query.select().size());
         Summary.Metric metric = chooseMetric();
         Summary.ResultType resultType = chooseResultType();
 
-        try {
-            summary = new Summary(selectedData, groupingStrategy, metric, resultType);
-            System.out.println("Summary options selected and applied.");
-        } catch (IllegalArgumentException e) {
-            System.out.println("Error creating summary: " + e.getMessage());
-        }
+        query = query.withSummary(groupingStrategy, metric, resultType);
+        System.out.println("Summary options selected and applied.");
     }
 
-    private GroupingStrategy chooseGroupingStrategy() {
+    private GroupingStrategy chooseGroupingStrategy(int selectedCount) {
         System.out.println("Choose grouping method:");
         System.out.println("1. No grouping");
         System.out.println("2. Number of groups");
         System.out.println("3. Number of days per group");
-        int groupingChoice = getValidIntInput(1, 3);
+        System.out.println("4. By calendar day");
+        System.out.println("5. By calendar week");
+        System.out.println("6. By calendar month");
+        int groupingChoice = getValidIntInput(1, 6);
 
         switch (groupingChoice) {
             case 1:
                 return new Summary.NoGrouping();
             case 2:
                 System.out.print("Enter number of groups: ");
-                int numberOfGroups = getValidIntInput(1, selectedData.size());
+                int numberOfGroups = getValidIntInput(1, selectedCount);
                 return new Summary.NumberOfGroups(numberOfGroups);
             case 3:
                 System.out.print("Enter number of days per group: ");
-                int daysPerGroup = getValidIntInput(1, selectedData.size());
+                int daysPerGroup = getValidIntInput(1, selectedCount);
                 return new Summary.NumberOfDays(daysPerGroup);
+            case 4:
+                return new Summary.ByPeriod(Summary.Period.DAY);
+            case 5:
+                return new Summary.ByPeriod(Summary.Period.WEEK);
+            case 6:
+                return new Summary.ByPeriod(Summary.Period.MONTH);
             default:
                 throw new IllegalStateException("Unexpected value: " + groupingChoice);
         }
@@ -206,7 +242,7 @@ public class UserInterface {
     }
 
     private void displayResults() {
-        if (summary == null) {
+        if (!query.hasSummary()) {
             System.out.println("Please select data and choose summary options first.");
             return;
         }
@@ -216,13 +252,25 @@ public class UserInterface {
         System.out.println("2. Chart");
         int displayChoice = getValidIntInput(1, 2);
 
-        display = (displayChoice == 2) ? new ChartDisplay() : new TabularDisplay();
+        Display display = (displayChoice == 2) ? new ChartDisplay() : new TabularDisplay();
 
-        List<Summary.SummaryResult> results = summary.calculate();
+        List<Summary.SummaryResult> results;
+        try {
+            results = query.results();
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error creating summary: " + e.getMessage());
+            return;
+        }
         if (results.isEmpty()) {
             System.out.println("No results to display.");
         } else {
-            display.show(results);
+            Metrics.Sample sample = Metrics.begin(Metrics.Stage.RENDER);
+            try {
+                display.show(results);
+                Metrics.increment(Metrics.Counter.RESULTS_RENDERED, results.size());
+            } finally {
+                Metrics.end(sample);
+            }
         }
     }
 }
\ No newline at end of file
@@ -1,15 +1,16 @@
 package com.covid.util;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 
 /**
  * Represents a date range with a start and end date.  Provides methods for accessing the start and end dates,
  * calculating the number of days in the range, and generating a string representation of the range.
+ * The dates are held as epoch days (days since 1970-01-01), which are also available directly for
+ * comparisons on hot paths.
  */
 public class DateRange {
-    private final LocalDate startDate; // The start date of the range (inclusive)
-    private final LocalDate endDate;   // The end date of the range (inclusive)
+    private final int startDate; // The start date of the range (inclusive), as an epoch day
+    private final int endDate;   // The end date of the range (inclusive), as an epoch day
 
     /**
      * Constructs a `DateRange` object with the specified start and end dates.
@@ -25,8 +26,8 @@ public class DateRange {
         if (endDate.isBefore(startDate)) {
             throw new IllegalArgumentException("End date cannot be before start date");
         }
-        this.startDate = startDate;
-        this.endDate = endDate;
+        this.startDate = (int) startDate.toEpochDay();
+        this.endDate = (int) endDate.toEpochDay();
     }
 
     /**
@@ -42,13 +43,37 @@ public class DateRange {
         if (date == null || numberOfDays <= 0) {
             throw new IllegalArgumentException("Date must not be null and number of days must be positive");
         }
+        int epochDay = (int) date.toEpochDay();
         if (isFromDate) {
-            this.startDate = date;
-            this.endDate = date.plusDays(numberOfDays - 1);
+            this.startDate = epochDay;
+            this.endDate = epochDay + numberOfDays - 1;
         } else {
-            this.endDate = date;
-            this.startDate = date.minusDays(numberOfDays - 1);
+            this.endDate = epochDay;
+            this.startDate = epochDay - (numberOfDays - 1);
+        }
+    }
+
+    private DateRange(int startDate, int endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    /**
+     * Creates a `DateRange` from start and end dates given as epoch days.
+     *
+     * @param startEpochDay The start date of the range, as days since 1970-01-01.
+     * @param endEpochDay   The end date of the range, as days since 1970-01-01.
+     * @return The new date range.
+     * @throws IllegalArgumentException if either date is `EpochDays.INVALID` or if the end date is before the start date.
+     */
+    public static DateRange ofEpochDays(int startEpochDay, int endEpochDay) {
+        if (startEpochDay == EpochDays.INVALID || endEpochDay == EpochDays.INVALID) {
+            throw new IllegalArgumentException("Start date and end date must be valid");
         }
+        if (endEpochDay < startEpochDay) {
+            throw new IllegalArgumentException("End date cannot be before start date");
+        }
+        return new DateRange(startEpochDay, endEpochDay);
     }
 
     /**
@@ -57,7 +82,7 @@ public class DateRange {
      * @return The start date.
      */
     public LocalDate getStartDate() {
-        return startDate;
+        return LocalDate.ofEpochDay(startDate);
     }
 
     /**
@@ -66,16 +91,44 @@ public class DateRange {
      * @return The end date.
      */
     public LocalDate getEndDate() {
+        return LocalDate.ofEpochDay(endDate);
+    }
+
+    /**
+     * Returns the start date of the range as an epoch day.
+     *
+     * @return The start date, as days since 1970-01-01.
+     */
+    public int getStartEpochDay() {
+        return startDate;
+    }
+
+    /**
+     * Returns the end date of the range as an epoch day.
+     *
+     * @return The end date, as days since 1970-01-01.
+     */
+    public int getEndEpochDay() {
         return endDate;
     }
 
+    /**
+     * Checks whether a date falls within the range (inclusive).
+     *
+     * @param epochDay The date, as days since 1970-01-01.
+     * @return True if the date is within the range.
+     */
+    public boolean contains(int epochDay) {
+        return epochDay >= startDate && epochDay <= endDate;
+    }
+
     /**
      * Calculates the number of days in the date range (inclusive).
      *
      * @return The number of days in the range.
      */
     public long getDays() {
-        return ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        return (long) endDate - startDate + 1;
     }
 
     /**
@@ -86,8 +139,8 @@ public class DateRange {
      */
     @Override
     public String toString() {
-        return startDate.equals(endDate)
-               ? startDate.toString()
-               : startDate + " - " + endDate;
+        return startDate == endDate
+               ? getStartDate().toString()
+               : getStartDate() + " - " + getEndDate();
     }
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+package com.covid.util;
+
+/**
+ * The `EpochDays` class converts between dates and their compact `int` form, the number of days
+ * since 1970-01-01 (the same value as `LocalDate.toEpochDay`).  Dates stored this way take no
+ * object per value, and comparing dates or detecting gaps between them is plain integer arithmetic.
+ *
+ * Parsing accepts the M/d/yyyy format of the data file and user input, as well as the ISO
+ * yyyy-MM-dd format, and never throws on invalid text.
+ */
+public final class EpochDays {
+
+    public static final int INVALID = Integer.MIN_VALUE; // Returned by the parse methods for invalid text
+
+    private static final int DAYS_0000_TO_1970 = 719468; // Days from 0000-03-01 to 1970-01-01
+    private static final int DAYS_PER_ERA = 146097;      // Days in a 400-year Gregorian cycle
+
+    private EpochDays() {
+        // Static utility class, not instantiable
+    }
+
+    /**
+     * Returns the epoch day of a calendar date.  The date is not validated.
+     *
+     * @param year  The year.
+     * @param month The month, from 1 to 12.
+     * @param day   The day of the month, from 1.
+     * @return The number of days since 1970-01-01.
+     */
+    public static int of(int year, int month, int day) {
+        int y = (month <= 2) ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1; // Counted from March 1st
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * @param epochDay The number of days since 1970-01-01.
+     * @return The year of the date.
+     */
+    public static int year(int epochDay) {
+        return toYearMonthDay(epochDay) >> 9;
+    }
+
+    /**
+     * @param epochDay The number of days since 1970-01-01.
+     * @return The month of the date, from 1 to 12.
+     */
+    public static int month(int epochDay) {
+        return (toYearMonthDay(epochDay) >> 5) & 0xF;
+    }
+
+    /**
+     * @param epochDay The number of days since 1970-01-01.
+     * @return The day of the month of the date, from 1.
+     */
+    public static int dayOfMonth(int epochDay) {
+        return toYearMonthDay(epochDay) & 0x1F;
+    }
+
+    /**
+     * @param epochDay The number of days since 1970-01-01.
+     * @return The ISO day of the week, from 1 (Monday) to 7 (Sunday).
+     */
+    public static int dayOfWeek(int epochDay) {
+        return Math.floorMod(epochDay + 3, 7) + 1; // 1970-01-01 was a Thursday
+    }
+
+    /**
+     * @param epochDay The number of days since 1970-01-01.
+     * @return The epoch day of the first day of the date's month.
+     */
+    public static int startOfMonth(int epochDay) {
+        return epochDay - dayOfMonth(epochDay) + 1;
+    }
+
+    /**
+     * @param epochDay The number of days since 1970-01-01.
+     * @return The epoch day of the last day of the date's month.
+     */
+    public static int endOfMonth(int epochDay) {
+        int ymd = toYearMonthDay(epochDay);
+        return epochDay - (ymd & 0x1F) + lengthOfMonth(ymd >> 9, (ymd >> 5) & 0xF);
+    }
+
+    /**
+     * @param year  The year.
+     * @param month The month, from 1 to 12.
+     * @return The number of days in the month.
+     */
+    public static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * @param year The year.
+     * @return True if the year is a leap year in the Gregorian calendar.
+     */
+    public static boolean isLeapYear(int year) {
+        return (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Parses a date in M/d/yyyy or yyyy-MM-dd format.
+     *
+     * @param text The date text.
+     * @return The epoch day, or `INVALID` if the text is not a valid date.
+     */
+    public static int parse(CharSequence text) {
+        char[] chars = new char[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = text.charAt(i);
+        }
+        return parse(chars, 0, chars.length);
+    }
+
+    /**
+     * Parses a date in M/d/yyyy or yyyy-MM-dd format from a range of a character buffer.
+     *
+     * @param chars The buffer holding the date text.
+     * @param start The start of the date text.
+     * @param end   The end (exclusive) of the date text.
+     * @return The epoch day, or `INVALID` if the text is not a valid date.
+     */
+    public static int parse(char[] chars, int start, int end) {
+        int month;
+        int day;
+        int year;
+        if (end - start == 10 && chars[start + 4] == '-' && chars[start + 7] == '-') {
+            year = parseDigits(chars, start, start + 4);
+            month = parseDigits(chars, start + 5, start + 7);
+            day = parseDigits(chars, start + 8, end);
+        } else {
+            int firstSlash = indexOf(chars, '/', start, end);
+            int secondSlash = (firstSlash < 0) ? -1 : indexOf(chars, '/', firstSlash + 1, end);
+            int monthLength = firstSlash - start;
+            int dayLength = secondSlash - firstSlash - 1;
+            if (secondSlash < 0 || monthLength < 1 || monthLength > 2
+                    || dayLength < 1 || dayLength > 2 || end - secondSlash != 5) {
+                return INVALID;
+            }
+            month = parseDigits(chars, start, firstSlash);
+            day = parseDigits(chars, firstSlash + 1, secondSlash);
+            year = parseDigits(chars, secondSlash + 1, end);
+        }
+        if (month < 1 || month > 12 || day < 1 || year < 0 || day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        return of(year, month, day);
+    }
+
+    /**
+     * Formats an epoch day in M/d/yyyy format.
+     *
+     * @param epochDay The number of days since 1970-01-01.
+     * @return The formatted date.
+     */
+    public static String format(int epochDay) {
+        int ymd = toYearMonthDay(epochDay);
+        return ((ymd >> 5) & 0xF) + "/" + (ymd & 0x1F) + "/" + (ymd >> 9);
+    }
+
+    /**
+     * Converts an epoch day to its year, month and day of the month, packed into a single `int` as
+     * (year << 9) | (month << 5) | day so that no array is allocated.
+     */
+    private static int toYearMonthDay(int epochDay) {
+        int z = epochDay + DAYS_0000_TO_1970;
+        int era = Math.floorDiv(z, DAYS_PER_ERA);
+        int dayOfEra = z - era * DAYS_PER_ERA;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100); // Counted from March 1st
+        int monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+        int month = (monthIndex < 10) ? monthIndex + 3 : monthIndex - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (year << 9) | (month << 5) | day;
+    }
+
+    private static int indexOf(char[] chars, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int parseDigits(char[] chars, int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
\ No newline at end of file